@@ -1,6 +1,15 @@
+import java.io.BufferedReader;
 import java.io.FileNotFoundException;
+import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 
 /*
  * Author: Luke Zeng
@@ -12,36 +21,47 @@ import java.util.Date;
  *
  * Table of Contents:
  *    public static void main(String[] args)
- *    public static void buildNet()
- *    public static void setConfig() throws IOException
- *    public static void setHelpers()
- *    public static boolean initialize()
- *    public static void populate() throws IOException
- *    public static void train()
- *    public static void allocate()
- *    public static void run()
- *    public static boolean validate()
- *    public static void echoConfig()
- *    public static void reportResults()
- *    public static void printNetworkConfig()
- *    public static void printWeights()
- *    public static void printStatus()
- *    public static double act(double x)
- *    public static double fprime(double x)
- *    public static void recalculate(int curCase)
- *    public static void recalculateForRun()
- *    public static double theta(int j)
- *    public static void input(double[] am)
- *    public static void getOutput(double[] inp)
- *    public static void calcDeltas()
- *    public static void trainProcedure(int truthtableindex)
- *    public static double calcError()
- *    public static double caseError(int testcase)
- *    public static void populateRand()
- *    public static void populateSet(double[][] neww1kj, double[][] neww2ji)
- *    public static String dumpTruthTable()
- *    public static String dumpWeights()
- *    public static String dumpVals()
+ *    public static void runBatch(String batchfile) throws IOException
+ *    public static String batchFile(String file, String suffix)
+ *    public void buildNet()
+ *    public void setConfig() throws IOException
+ *    public void setHelpers()
+ *    public boolean initialize()
+ *    public void populate() throws IOException
+ *    public void train()
+ *    public void multiStart()
+ *    public void trainAll(ExecutorService pool, ArrayList<ABCDEFGHIJKLMN> nets, int iterations)
+ *    public ABCDEFGHIJKLMN spawn(long netseed)
+ *    public void adopt(ABCDEFGHIJKLMN net)
+ *    public void publish()
+ *    public NetworkSnapshot latest()
+ *    public void restoreBest(Validator validator)
+ *    public void allocate()
+ *    public void allocateNetwork()
+ *    public void run()
+ *    public boolean validate()
+ *    public void echoConfig()
+ *    public void reportResults()
+ *    public void printNetworkConfig()
+ *    public void printWeights()
+ *    public void printStatus()
+ *    public double act(double x)
+ *    public double fprime(double x)
+ *    public void recalculate(int curCase)
+ *    public void recalculateForRun()
+ *    public double theta(int j)
+ *    public void input(double[] am)
+ *    public void getOutput(double[] inp)
+ *    public void calcDeltas()
+ *    public void trainProcedure(int truthtableindex)
+ *    public double calcError()
+ *    public double caseError(int testcase)
+ *    public void populateRand()
+ *    public void populateBlock(int n, int block, SplittableRandom rng)
+ *    public void populateSet(double[][] neww1kj, double[][] neww2ji)
+ *    public String dumpTruthTable()
+ *    public String dumpWeights()
+ *    public String dumpVals()
  */
 
 
@@ -67,79 +87,105 @@ public class ABCDEFGHIJKLMN
    public static final String DEFAULT_WEIGHTS2 = "file.txt"; // default weights2 val.
    public static final String SAVEFOLDER = "a\\"; // folder to save weights to (empty if root folder).
    public static final int MAXFILES = 20; // isn't a parameter because we will never change this value.
+   public static final String BATCHEXT = ".batch"; // extension of the batch files written by the CodeCompiler.
+   public static final int WARMUPDIV = 10;          // default warm-up is maxIterations / WARMUPDIV when multi-starting.
+   public static final int ROWBLOCK = 64;           // rows of a weight layer populated from one random number generator.
+   public static final int PARALLELWEIGHTS = 1 << 16; // layers with at least this many weights are populated in parallel.
+   public static final int DEFAULT_PUBLISH = 100;   // default publish interval when serving while training.
+   public static final int DEFAULT_VALTIME = 100;   // default validation interval.
+   public static final int DEFAULT_PATIENCE = 10;   // default validations without improvement before stopping early.
 
 /******
  * Configuration/validation
  */
-   public static Config cf;
-   public static InputValidation valid; // input validation.
+   public Config cf;
+   public InputValidation valid; // input validation.
 /******
  * Base network storage and activation function.
  */
-   public static double[][][] wAll;    // stores all the weights of the network.
+   public double[][][] wAll;    // stores all the weights of the network.
 
-   public static double[][] a;         // stores all the activation values.
-   public static ActivationFunction f; // activation function f(x).
-   public static double[][] outputs;   // stores the outputs from the sequential run function.
+   public double[][] a;         // stores all the activation values.
+   public ActivationFunction f; // activation function f(x).
+   public double[][] outputs;   // stores the outputs from the sequential run function.
 
 /******
  * Configuration Parameters
  */
-   public static double lambda;         // step size multiplier for gradient descent.
-   public static int[] numNodes;        // indicates the number of nodes on each activation layer
-   public static int numLayers;         // number of layers in the n-layer network.
-   public static int numActLayers;      // number of activation layers in the n-layer network.
-   public static int outputlayer;       // indicates the output layer of the network.
-   public static int populationMethod;  // population method --> 0: randomize weights | 1: manually set weights (DEPRECATED) | 2: File IO
-   public static boolean train;         // if true, train. if false, run.
-   public static double minRand;        // minimum random threshold
-   public static double maxRand;        // maximum random threshold.
-   public static double avgErrCut;      // average error cutoff (error threshold).
-   public static int maxIterations;     // maximum iterations before cutoff.
-   public static boolean printWeight;   // flag to indicate whether to print weights before running.
-   public static boolean printTruths;   // flag to indicate whether to print the truth table.
-   public static boolean runAfterTrain; // indicates whether the network should run after training.
-   public static boolean saveWeights;   // indicates to save weights to the file named FILENAME.
-   public static boolean savediff;      // indicates to save to different files, default false.
-   public static int saveTime;          // every how many operations to save weights.
-   public static int keepAlive;         // indicates the interval to report current run status.
-   public static String inFile;         // input file filename.
-   public static String outFile;        // output file filename.
-
-   public static String weights1 = DEFAULT_WEIGHTS1;       // first weights file
-   public static String weights2 = DEFAULT_WEIGHTS2;       // second weights file
-
-   public static FileHandler fh;        // handles the files for the network.
-
-   public static boolean hitThreshold = false; // flag for program termination due to hitting error threshold. (default false)
-   public static boolean outofOps = false;     // flag for program termination due to running out of operations. (default false)
-   public static double errorReached;          // stores error reached at the end of training.
+   public double lambda;         // step size multiplier for gradient descent.
+   public int[] numNodes;        // indicates the number of nodes on each activation layer
+   public int numLayers;         // number of layers in the n-layer network.
+   public int numActLayers;      // number of activation layers in the n-layer network.
+   public int outputlayer;       // indicates the output layer of the network.
+   public int populationMethod;  // population method --> 0: randomize weights | 1: manually set weights (DEPRECATED) | 2: File IO
+   public boolean train;         // if true, train. if false, run.
+   public double minRand;        // minimum random threshold
+   public double maxRand;        // maximum random threshold.
+   public long seed;             // seed of the random weight population (same seed, same weights).
+   public double avgErrCut;      // average error cutoff (error threshold).
+   public int maxIterations;     // maximum iterations before cutoff.
+   public boolean printWeight;   // flag to indicate whether to print weights before running.
+   public boolean printTruths;   // flag to indicate whether to print the truth table.
+   public boolean runAfterTrain; // indicates whether the network should run after training.
+   public boolean saveWeights;   // indicates to save weights to the file named FILENAME.
+   public boolean savediff;      // indicates to save to different files, default false.
+   public int saveTime;          // every how many operations to save weights.
+   public int keepAlive;         // indicates the interval to report current run status.
+   public String inFile;         // input file filename.
+   public String outFile;        // output file filename.
+   public int starts;            // number of differently initialized networks trained in parallel (1 trains this network alone).
+   public int warmup;            // iterations every start trains for before the worst starts are culled.
+   public int survivors;         // number of starts that keep training after the warm-up.
+   public int publishTime;       // every how many iterations to publish a snapshot of the weights (0 to never publish).
+   public int servePort;         // port to serve predictions on while training (0 to not serve).
+   public boolean validating;    // if true, validate against the validation truth table while training.
+   public String valInFile;      // validation inputs file filename.
+   public String valOutFile;     // validation outputs file filename.
+   public int valCases;          // number of rows (cases) in the validation truth table.
+   public int valTime;           // every how many iterations to validate.
+   public int patience;          // validations in a row without improvement before training stops early.
+
+   public String weights1 = DEFAULT_WEIGHTS1;       // first weights file
+   public String weights2 = DEFAULT_WEIGHTS2;       // second weights file
+   public String batchSuffix = "";                  // added to weights2 when run in a batch (_N for the Nth configuration).
+
+   public FileHandler fh;        // handles the files for the network.
+
+   public boolean hitThreshold = false; // flag for program termination due to hitting error threshold. (default false)
+   public boolean outofOps = false;     // flag for program termination due to running out of operations. (default false)
+   public double errorReached;          // stores error reached at the end of training.
+   public volatile NetworkSnapshot latest; // latest published copy of the weights (null until the first publish).
+   public boolean stoppedEarly = false; // flag for program termination due to the validation error no longer improving.
+   public double valErrorReached;       // lowest validation error reached during training.
+   public int valIterationReached;      // iteration the lowest validation error was reached at.
 
 
 
 /******
  * Truth Table Arrays
  */
-   public static double[][] givenInputs;     // truth table inputs.
-   public static double[][] expectedOutputs; // truth table outputs.
-   public static int numCases;               // number of rows (cases) in the truth table.
+   public double[][] givenInputs;     // truth table inputs.
+   public double[][] expectedOutputs; // truth table outputs.
+   public int numCases;               // number of rows (cases) in the truth table.
+   public double[][] validationInputs;  // validation truth table inputs.
+   public double[][] validationOutputs; // validation truth table outputs.
 
 /******
  * Training Arrays/Variables
  * Lowercase greek letter spellings (like psi) represent the lowercase greek letters.
  * Uppercase greek letter spellings (like Theta) represent the uppercase greek letters.
  */
-   public static double[][] psi;        // psi arrays.
-   public static double[][] Theta;      // stores theta values for the network.
-   public static int iterationsReached; // the amount of iterations reached during training.
+   public double[][] psi;        // psi arrays.
+   public double[][] Theta;      // stores theta values for the network.
+   public int iterationsReached; // the amount of iterations reached during training.
 
 /******
  * network frontend flags/miscellaneous
  */
-   public static int exit = 0;   // default exit value is 0 (flag to determine if initialization is valid).
-   public static long starttime; // start time of train
-   public static long endtime;   // end time of train
-   public static Date date;      // date object for runtime tracking.
+   public int exit = 0;   // default exit value is 0 (flag to determine if initialization is valid).
+   public long starttime; // start time of train
+   public long endtime;   // end time of train
+   public Date date;      // date object for runtime tracking.
 
 /*
  * main function: initializes and runs/train the network based on passed control file to command line
@@ -147,25 +193,38 @@ public class ABCDEFGHIJKLMN
  */
    public static void main(String[] args)
    {
+      ABCDEFGHIJKLMN net; // network built from the current configuration file.
+
       if (args.length > 0) // set configuration file from command line arguments.
       {
          try
          {
             for (String arg : args)
             {
-               cf = new Config(arg); // load configuration file specified on command line.
-
-               System.out.println("Configuration file: " + arg); //
-
-               buildNet();
-            }
+               if (arg.endsWith(BATCHEXT)) // batch files list several compiled configurations, which are run in parallel.
+               {
+                  System.out.println("Batch file: " + arg);
+
+                  runBatch(arg);
+               }
+               else
+               {
+                  net = new ABCDEFGHIJKLMN();
+                  net.cf = new Config(arg); // load configuration file specified on command line.
+
+                  System.out.println("Configuration file: " + arg); //
+
+                  net.buildNet();
+               }
+            } // for (String arg : args)
          }
          catch (IOException e) // catch any IO issues in the configuration file.
          {
             System.out.println("Cannot find configuration file, or configuration file is of a corrupted format. Will use default (test.bin)");
             try
             {
-               cf = new Config(DEFAULT_CONFIG); // Load the default configuration instead of the non-functional provided configuration.
+               net = new ABCDEFGHIJKLMN();
+               net.cf = new Config(DEFAULT_CONFIG); // Load the default configuration instead of the non-functional provided configuration.
             }
             catch (IOException ie)
             {
@@ -179,11 +238,12 @@ public class ABCDEFGHIJKLMN
          System.out.println("No configuration file provided. Will use default (test.bin)");
          try
          {
-            cf = new Config(DEFAULT_CONFIG); // Load the default configuration.
+            net = new ABCDEFGHIJKLMN();
+            net.cf = new Config(DEFAULT_CONFIG); // Load the default configuration.
 
             System.out.println("running network on configuration file " + DEFAULT_CONFIG);
 
-            buildNet(); // run the program on the loaded configuration.
+            net.buildNet(); // run the program on the loaded configuration.
          }
          catch (IOException ie)
          {
@@ -194,14 +254,90 @@ public class ABCDEFGHIJKLMN
 
    } // public static void main(String[] args)
 
+/*
+ * trains/runs every compiled configuration listed in the given batch file (one .bin file per line, written by the
+ * CodeCompiler when a LOML script contains ranges or lists) in parallel, with one network per configuration
+ * on a thread pool no larger than the number of available processors.
+ */
+   public static void runBatch(String batchfile) throws IOException
+   {
+      ArrayList<String> configs = new ArrayList<String>();    // compiled configuration files listed in the batch file.
+      ArrayList<Future<?>> runs = new ArrayList<Future<?>>(); // one pending train/run per configuration.
+      ExecutorService pool;
+      ABCDEFGHIJKLMN net;
+
+      BufferedReader reader = new BufferedReader(new FileReader(batchfile));
+      String curline = reader.readLine();
+
+      while (curline != null) // read the configuration file names, one per line.
+      {
+         if (curline.trim().length() != 0)
+         {
+            configs.add(curline.trim());
+         }
+         curline = reader.readLine();
+      }
+      reader.close();
+
+      pool = Executors.newFixedThreadPool(Math.max(1, Math.min(configs.size(), Runtime.getRuntime().availableProcessors())));
+
+      for (int config = 0; config < configs.size(); config++)
+      {
+         try
+         {
+            net = new ABCDEFGHIJKLMN();
+            net.cf = new Config(configs.get(config)); // configs are loaded up front so a broken one is reported before training starts.
+            net.batchSuffix = "_" + (config + 1);     // numbered like the CodeCompiler numbers filename_N.bin, so every
+                                                      // network saves its weights (and temp and periodic files) on its own.
+
+            runs.add(pool.submit(net::buildNet));
+         }
+         catch (IOException e)
+         {
+            System.out.println("BATCH: cannot load configuration file " + configs.get(config) + ", skipping it.");
+         }
+      } // for (int config = 0; config < configs.size(); config++)
+
+      pool.shutdown();
+
+      for (Future<?> curRun : runs) // wait for every network in the batch to finish.
+      {
+         try
+         {
+            curRun.get();
+         }
+         catch (InterruptedException | ExecutionException e)
+         {
+            System.out.println("BATCH: a network in batch " + batchfile + " failed: " + e);
+         }
+      } // for (Future<?> curRun : runs)
+   } // public static void runBatch(String batchfile) throws IOException
+
+/*
+ * returns the given file name with the suffix added before its extension (weights.bin and _3 give weights_3.bin), or at the
+ * end if it has no extension.
+ */
+   public static String batchFile(String file, String suffix)
+   {
+      int dot = file.lastIndexOf('.');
+
+      if (dot <= Math.max(file.lastIndexOf('/'), file.lastIndexOf('\\'))) // no extension (a dot in a folder name doesn't count).
+      {
+         return file + suffix;
+      }
+
+      return file.substring(0, dot) + suffix + file.substring(dot);
+   } // public static String batchFile(String file, String suffix)
+
 
 
 /*
  * initializes and runs the program according to the current loaded configuration.
  */
-   public static void buildNet()
+   public void buildNet()
    {
       boolean canstart; // Now don't you say? indicates that training/running can start (if it wasn't clear already)
+      InferenceServer server = null; // serves the published snapshots while training.
       canstart = initialize();
 
       if (canstart)
@@ -211,9 +347,45 @@ public class ABCDEFGHIJKLMN
 
          if (train)          // procedure if training
          {
-            printStatus();   // prints a small status message letting user know that the program is training.
+            synchronized (System.out) // keeps the lines of one network together when a batch runs several networks at once.
+            {
+               printStatus(); // prints a small status message letting user know that the program is training.
+            }
+
+            if (servePort > 0)
+            {
+               publish();    // the server always has a snapshot to run, starting with the initial weights.
+
+               try
+               {
+                  server = new InferenceServer(this::latest, servePort, InferenceServer.DEFAULT_MAXBATCH, InferenceServer.DEFAULT_MAXWAIT);
+                  server.start();
+                  System.out.println("SERVER: serving the network on localhost:" + servePort + " while it trains");
+               }
+               catch (IOException e)
+               {
+                  System.out.println("SERVER: cannot serve on port " + servePort + ", training without serving: " + e.getMessage());
+               }
+            } // if (servePort > 0)
 
-            train();         // trains the network.
+            try
+            {
+               if (starts > 1)
+               {
+                  multiStart(); // trains several starts in parallel and keeps the best one.
+               }
+               else
+               {
+                  train();      // trains the network.
+               }
+            }
+            finally
+            {
+               if (server != null)
+               {
+                  server.stop(); // training is over, the saved weights can be served with the InferenceServer.
+               }
+            }
 
             if (runAfterTrain)
             {
@@ -227,7 +399,10 @@ public class ABCDEFGHIJKLMN
                printWeights();
             }
 
-            printStatus();   // prints a short status message which indicates that the program is running.
+            synchronized (System.out)
+            {
+               printStatus(); // prints a short status message which indicates that the program is running.
+            }
 
             run();           // runs the network for all cases and stores the outputs.
          } // else
@@ -235,14 +410,18 @@ public class ABCDEFGHIJKLMN
          date = new Date();  // record end time.
          endtime = date.getTime();
 
-         reportResults();    // print the result of the train/run.
+         synchronized (System.out) // keeps the report of one network together when a batch runs several networks at once.
+         {
+            System.out.println("Results for configuration file " + cf.config);
+            reportResults(); // print the result of the train/run.
+         }
 
          if (saveWeights) // saves the weights to the output file if option is selected.
          {
             fh.writeWeights(wAll, numNodes, numLayers);
          }
       } // if (canstart)
-   } // public static void buildNet()
+   } // public void buildNet()
 
 
 /******
@@ -253,7 +432,7 @@ public class ABCDEFGHIJKLMN
  * sets the configuration parameters of the network.
  * If no values are provided for any configuration
  */
-   public static void setConfig() throws IOException
+   public void setConfig() throws IOException
    {
       String actfunct; // temporary string to store the activation function configuration.
 
@@ -280,8 +459,19 @@ public class ABCDEFGHIJKLMN
       actfunct = cf.actfunct;                   // set activation function.
       saveTime = cf.saveTime;                   // when to save weights (every x operations)
       weights1 = cf.weightsFile;                // input file weights.
-      weights2 = cf.outputWeights;              // output file weights
+      weights2 = batchFile(cf.outputWeights, batchSuffix); // output file weights (of this configuration, in a batch).
       savediff = cf.savediff;                   // save differnt files.
+      starts = cf.starts;                       // number of starts when training (1 means no multi-start).
+      warmup = cf.warmup;                       // warm-up iterations of each start.
+      survivors = cf.survivors;                 // starts kept after the warm-up.
+      seed = cf.seed;                           // seed for the random population of weights.
+      publishTime = cf.publishTime;             // publish a snapshot of the weights every x iterations.
+      servePort = cf.servePort;                 // port to serve predictions on while training.
+      valInFile = cf.valInputs;                 // file name of the validation inputs.
+      valOutFile = cf.valOutputs;               // file name of the validation truth table.
+      valCases = cf.valCases;                   // number of cases in the validation truth table.
+      valTime = cf.valTime;                     // validate every x iterations.
+      patience = cf.patience;                   // validations without improvement before stopping early.
 
       for (int n = 0; n < numActLayers; n++)
       {
@@ -305,12 +495,12 @@ public class ABCDEFGHIJKLMN
          case "tangent":
             f = new HypTan();
       } // switch (actfunct)
-   } // public static void setConfig() throws IOException
+   } // public void setConfig() throws IOException
 
 /*
  * sets helper variables
  */
-   public static void setHelpers()
+   public void setHelpers()
    {
       outputlayer = numActLayers-1;
    }
@@ -318,16 +508,27 @@ public class ABCDEFGHIJKLMN
 /*
  * runs allocate, populate, setconfig, and echoconfig, not necessarily in that order (makes main method less cluttered).
  */
-   public static boolean initialize()
+   public boolean initialize()
    {
+      boolean passed; // validation passed.
+
       try
       {
          setConfig(); // set configurations.
          setHelpers();
 
-         if(validate()) // only keep initializing if validation passes
+         synchronized (System.out) // keeps the configuration of one network together when a batch runs several networks at once.
+         {
+            passed = validate();
+
+            if (passed)
+            {
+               echoConfig();
+            }
+         }
+
+         if (passed) // only keep initializing if validation passes
          {
-            echoConfig();
             allocate();
             populate(); // may change exit code to 1 (initialization fails) if file IO for weights or truth tables fails.
          }
@@ -349,7 +550,7 @@ public class ABCDEFGHIJKLMN
 /*
  * populates the arrays of the network based on the configuration parameters.
  */
-   public static void populate() throws IOException
+   public void populate() throws IOException
    {
       switch (populationMethod)                 // populates the weights of the network.
       {
@@ -360,7 +561,7 @@ public class ABCDEFGHIJKLMN
             fh.changeFile(weights1);
             if (!fh.loadWeights(wAll, numNodes, numLayers)) // loads weights from file, return true if valid weights, false if invalid.
             {
-               System.out.println("CONFIG: weights file does not match with given config parameters. Populating random");
+               System.out.println("CONFIG: weights file does not match with given config parameters. Populating random, seed " + seed);
                populateRand();
             }
             break;
@@ -392,13 +593,31 @@ public class ABCDEFGHIJKLMN
          printTruths = false;
       }
 
-   } // public static void populate() throws IOException
+      if (validating) // the validation truth table is optional, training goes on without validation if it is invalid.
+      {
+         try
+         {
+            validating = FileHandler.decodeIns(validationInputs, valInFile, numNodes[FIRST], valCases) &&
+                         FileHandler.decodeOuts(validationOutputs, valOutFile, numNodes[outputlayer], valCases);
+         }
+         catch (IOException e)
+         {
+            validating = false;
+         }
+
+         if (!validating)
+         {
+            System.out.println("CONFIG: validation truth table missing or not matching config. Training without validation.");
+         }
+      } // if (validating)
+
+   } // public void populate() throws IOException
 
 
 
 /*
  * trains the network with gradient descent learning with backpropagation optimization,
- * stores the amount of iterations the network took to train in a static field.
+ * stores the amount of iterations the network took to train in a field.
  * Will terminate if iterations exceeds maximum iterations defined in configuration parameters or if
  * an error threshold defined in configuration parameters is reached.
  *
@@ -407,15 +626,22 @@ public class ABCDEFGHIJKLMN
  *
  * Will save weights to the output file if option is selected.
  */
-   public static void train()
+   public void train()
    {
       boolean done = false;  // flag to indicate that training has finished.
       int cases;             // loop iterator for each case in training.
       int curiteration = 0;  // current iteration of the training.
       double curerror = 0.0; // current error of the network.
+      Validator validator = null; // validates snapshots of the weights on its own thread.
 
       if (saveWeights)
          fh.changeFile(weights2);
+
+      if (validating)
+      {
+         validator = new Validator(validationInputs, validationOutputs, patience);
+         validator.start();
+      }
       while (!done)
       {
          curerror = 0.0; // reset error to 0.
@@ -446,11 +672,24 @@ public class ABCDEFGHIJKLMN
 
          if (keepAlive > 0 && (curiteration % keepAlive) == 0)
          {
-            System.out.print("TRAINING: current iteration: " + curiteration + ", error: " + curerror);
+            System.out.println("TRAINING: current iteration: " + curiteration + ", error: " + curerror); // one line at once, so
+                                                                                                       // parallel networks don't mix lines.
+         }
 
-            System.out.println();
+         if (publishTime > 0 && (curiteration % publishTime) == 0)
+         {
+            publish(); // readers switch to the new snapshot, training doesn't wait for them.
+         }
 
+         if (validator != null && (curiteration % valTime) == 0)
+         {
+            validator.submit(new NetworkSnapshot(wAll, numNodes, f), curiteration); // validated while training goes on.
+         }
 
+         if (validator != null && validator.shouldStop())
+         {
+            stoppedEarly = true; // mark that training terminated because the validation error stopped improving.
+            done = true;         // flag to indicate that training has finished.
          }
 
          if(saveWeights && saveTime>0 && (curiteration % saveTime == 0))
@@ -458,28 +697,231 @@ public class ABCDEFGHIJKLMN
 
             if (savediff)
                fh.changeFile(SAVEFOLDER + ((curiteration/saveTime) % MAXFILES) +"-"+weights2);
-            System.out.print("SAVE: current iteration: " + curiteration + " - Saving weights to file " + fh.network + " ... ");
             fh.writeWeights(wAll, numNodes, numLayers);
-            System.out.print("done!");
-            System.out.println();
+            System.out.println("SAVE: current iteration: " + curiteration + " - Saved weights to file " + fh.network); // one line at once.
          }
 
       } // while (!done)
 
       iterationsReached = curiteration; // stores the iterations reached for result reporting.
       errorReached = curerror;          // stores the error reached at the end of training for result reporting.
-   } // public static void train()
+
+      if (validator != null)
+      {
+         validator.finish(); // validates what is left in the queue.
+         restoreBest(validator);
+      }
+
+      if (publishTime > 0)
+      {
+         publish(); // the trained weights.
+      }
+   } // public void train()
+
+/*
+ * trains starts differently initialized copies of this network in parallel for warmup iterations, culls all but the
+ * survivors with the lowest error and trains only those on to maxIterations (the warm-up counts towards maxIterations).
+ * The network with the lowest error in the end is copied into this network for running, reporting and saving.
+ * Starts that fail to train are dropped (see trainAll); throws an IllegalStateException if every start failed.
+ */
+   public void multiStart()
+   {
+      ArrayList<ABCDEFGHIJKLMN> nets = new ArrayList<ABCDEFGHIJKLMN>(); // the starts still training.
+      ExecutorService pool = Executors.newFixedThreadPool(Math.min(starts, Runtime.getRuntime().availableProcessors()));
+      SplittableRandom seeds = new SplittableRandom(seed); // gives every start its own seed, derived from the network seed.
+      boolean done;
+
+      for (int start = 0; start < starts; start++)
+      {
+         nets.add(spawn(seeds.nextLong()));
+      }
+
+      try
+      {
+         trainAll(pool, nets, warmup);
+         nets.sort((first, second) -> Double.compare(first.errorReached, second.errorReached)); // lowest error first.
+
+         System.out.println("MULTISTART: warm-up of " + nets.size() + " of " + starts + " starts done, best error: " +
+                            nets.get(0).errorReached + ", worst error: " + nets.get(nets.size()-1).errorReached);
+
+         done = nets.get(0).hitThreshold; // no need to keep training if a start already reached the error threshold.
+
+         if (!done)
+         {
+            nets = new ArrayList<ABCDEFGHIJKLMN>(nets.subList(0, Math.min(survivors, nets.size()))); // cull all but the best survivors.
+
+            trainAll(pool, nets, maxIterations - warmup);
+            nets.sort((first, second) -> Double.compare(first.errorReached, second.errorReached));
+
+            nets.get(0).iterationsReached += warmup; // report the warm-up iterations as well.
+         }
+      } // try
+      finally
+      {
+         pool.shutdown();
+      }
+
+      adopt(nets.get(0));
+   } // public void multiStart()
+
+/*
+ * trains each of the given networks for the given number of iterations on the given thread pool
+ * and waits until all of them are done. Networks that fail to train are taken out of nets (their errorReached
+ * means nothing, so they must not be ranked); throws an IllegalStateException if none is left.
+ */
+   public void trainAll(ExecutorService pool, ArrayList<ABCDEFGHIJKLMN> nets, int iterations)
+   {
+      ArrayList<Future<?>> runs = new ArrayList<Future<?>>(); // one pending training per network.
+      ArrayList<ABCDEFGHIJKLMN> failed = new ArrayList<ABCDEFGHIJKLMN>();
+
+      for (ABCDEFGHIJKLMN net : nets)
+      {
+         net.maxIterations = iterations;
+         net.outofOps = false; // the previous round ran out of its iterations, this one hasn't yet.
+         runs.add(pool.submit(net::train));
+      }
+
+      for (int run = 0; run < runs.size(); run++)
+      {
+         try
+         {
+            runs.get(run).get();
+         }
+         catch (InterruptedException | ExecutionException e)
+         {
+            System.out.println("MULTISTART: a start failed to train, dropping it: " + e);
+            failed.add(nets.get(run));
+         }
+      } // for (int run = 0; run < runs.size(); run++)
+
+      nets.removeAll(failed);
+
+      if (nets.isEmpty())
+      {
+         throw new IllegalStateException("every start of the multi-start failed to train");
+      }
+   } // public void trainAll(ExecutorService pool, ArrayList<ABCDEFGHIJKLMN> nets, int iterations)
+
+/*
+ * returns a new network with the configuration and truth table of this network, randomly populated from the given seed.
+ * The truth table is shared (it is only read while training), everything the training writes to is allocated anew.
+ * The new network doesn't report status or save weights.
+ */
+   public ABCDEFGHIJKLMN spawn(long netseed)
+   {
+      ABCDEFGHIJKLMN net = new ABCDEFGHIJKLMN();
+
+      net.cf = cf;
+      net.numNodes = numNodes;
+      net.numLayers = numLayers;
+      net.numActLayers = numActLayers;
+      net.outputlayer = outputlayer;
+      net.f = f;
+      net.lambda = lambda;
+      net.minRand = minRand;
+      net.maxRand = maxRand;
+      net.seed = netseed;
+      net.avgErrCut = avgErrCut;
+      net.maxIterations = maxIterations;
+      net.numCases = numCases;
+      net.givenInputs = givenInputs;
+      net.expectedOutputs = expectedOutputs;
+      net.train = true;
+      net.saveWeights = false;
+      net.keepAlive = 0;
+      net.publishTime = 0; // only the best start is published, once it is adopted.
+
+      net.allocateNetwork();
+      net.populateRand();
+
+      return net;
+   } // public ABCDEFGHIJKLMN spawn(long netseed)
+
+/*
+ * takes over the weights and the training results of the given network.
+ */
+   public void adopt(ABCDEFGHIJKLMN net)
+   {
+      wAll = net.wAll;
+      iterationsReached = net.iterationsReached;
+      errorReached = net.errorReached;
+      hitThreshold = net.hitThreshold;
+      outofOps = net.outofOps;
+
+      if (publishTime > 0)
+      {
+         publish();
+      }
+   } // public void adopt(ABCDEFGHIJKLMN net)
+
+/*
+ * publishes an immutable copy of the current weights as the latest snapshot. The copy is made by the training thread
+ * between iterations, so it is always a complete set of weights from one iteration, and readers pick it up with a single
+ * volatile read (no locks, and a reader still running an older snapshot is not affected).
+ */
+   public void publish()
+   {
+      latest = new NetworkSnapshot(wAll, numNodes, f);
+   }
+
+/*
+ * returns the latest published snapshot of the weights (null if nothing was published yet).
+ */
+   public NetworkSnapshot latest()
+   {
+      return latest;
+   }
+
+/*
+ * records the validation results of the given (finished) validator. If training stopped early, the weights with the lowest
+ * validation error are restored and the training error is recalculated for them.
+ */
+   public void restoreBest(Validator validator)
+   {
+      valErrorReached = validator.bestError();
+      valIterationReached = validator.bestIteration();
+
+      if (stoppedEarly && validator.best() != null)
+      {
+         wAll = validator.best().weights();
+         errorReached = calcError();
+      }
+   } // public void restoreBest(Validator validator)
 
 
 
 /*
  * allocates the major network arrays for the network.
  */
-   public static void allocate()
+   public void allocate()
    {
       givenInputs = new double[numCases][numNodes[FIRST]];
 
 
+      if (train || printTruths) // only allocate truth table if training or printing truth table.
+      {
+         expectedOutputs = new double[numCases][numNodes[outputlayer]];
+      }
+
+      if (validating) // only allocate the validation truth table if validating.
+      {
+         validationInputs = new double[valCases][numNodes[FIRST]];
+         validationOutputs = new double[valCases][numNodes[outputlayer]];
+      }
+
+      if ((train && runAfterTrain) || !train)           // only allocate run-exclusive arrays if running or running after training.
+      {
+         outputs = new double[numCases][numNodes[outputlayer]]; // stores the outputs after running.
+      }
+
+      allocateNetwork();
+   } // public void allocate()
+
+/*
+ * allocates the weights, activations and (if training) the training arrays of the network.
+ */
+   public void allocateNetwork()
+   {
       if (train) // only allocate training-exclusive arrays if training.
       {
          psi = new double[numActLayers][];
@@ -494,18 +936,8 @@ public class ABCDEFGHIJKLMN
          {
             psi[alpha] = new double[numNodes[alpha]];
          }
-
-         expectedOutputs = new double[numCases][numNodes[outputlayer]];
       } // if (train)
-      else if (printTruths) // if not training, only allocate truth table if printing truth table.
-      {
-         expectedOutputs = new double[numCases][numNodes[outputlayer]];
-      }
 
-      if ((train && runAfterTrain) || !train)           // only allocate run-exclusive arrays if running or running after training.
-      {
-         outputs = new double[numCases][numNodes[outputlayer]]; // stores the outputs after running.
-      }
       wAll = new double[numLayers][][];                        // stores all of the network weights.
 
       for (int n = 0; n < numLayers; n++)
@@ -519,12 +951,12 @@ public class ABCDEFGHIJKLMN
       {
          a[alpha] = new double[numNodes[alpha]];
       }
-   } // public static void allocate()
+   } // public void allocateNetwork()
 
 /*
  * runs the network on all cases and stores the result.
  */
-   public static void run()
+   public void run()
    {
       for (int cases = 0; cases < numCases; cases++) // runs all the test cases from the truth table.
       {
@@ -534,13 +966,13 @@ public class ABCDEFGHIJKLMN
             outputs[cases][i] = a[outputlayer][i];
          }
       }
-   } // public static void run()
+   } // public void run()
 
 /*
  * validates that the configuration parameters are all defined and
  * reports if not all params are present (sets default vals if not present).
  */
-   public static boolean validate()
+   public boolean validate()
    {
       boolean ret = true;
       if (!valid.lambdaDefined)
@@ -662,13 +1094,69 @@ public class ABCDEFGHIJKLMN
          populationMethod = DEFAULT_POPULATION;
       }
 
+      if (!valid.seedDefined) // a seed is still picked (and echoed) so the run can be repeated, also if the weights file doesn't load.
+      {
+         seed = new SplittableRandom().nextInt();
+         System.out.println("Config: seed not defined, will use " + seed);
+      }
+
+      if (starts > 1 && (!train || populationMethod != 0)) // multi-start only makes sense for randomly populated training.
+      {
+         System.out.println("Config: multi-start needs random population and training, training a single network.");
+         starts = 1;
+      }
+
+      if (starts > 1 && (warmup <= 0 || warmup >= maxIterations))
+      {
+         System.out.println("Config: warm-up missing or not below max iterations, setting to " + (maxIterations / WARMUPDIV));
+         warmup = Math.max(1, maxIterations / WARMUPDIV);
+      }
+
+      if (starts > 1 && (survivors < 1 || survivors > starts))
+      {
+         System.out.println("Config: survivors must be between 1 and the number of starts, keeping 1");
+         survivors = 1;
+      }
+
+      validating = train && valid.valInputsDefined && valid.valOutputsDefined && valCases > 0;
+
+      if (validating && starts > 1)
+      {
+         System.out.println("Config: validation only works when training a single start, training without validation.");
+         validating = false;
+      }
+
+      if (validating && valTime <= 0)
+      {
+         System.out.println("Config: validation interval not defined, validating every " + DEFAULT_VALTIME + " iterations");
+         valTime = DEFAULT_VALTIME;
+      }
+
+      if (validating && patience <= 0)
+      {
+         System.out.println("Config: patience not defined, stopping after " + DEFAULT_PATIENCE + " validations without improvement");
+         patience = DEFAULT_PATIENCE;
+      }
+
+      if (servePort > 0 && !train)
+      {
+         System.out.println("Config: serving while training needs training, not serving.");
+         servePort = 0;
+      }
+
+      if (servePort > 0 && publishTime <= 0)
+      {
+         System.out.println("Config: serving while training without a publish interval, publishing every " + DEFAULT_PUBLISH + " iterations");
+         publishTime = DEFAULT_PUBLISH;
+      }
+
       return ret;
-   } //public static boolean validate()
+   } //public boolean validate()
 
 /*
  * prints all the configuration parameters to the terminal.
  */
-   public static void echoConfig()
+   public void echoConfig()
    {
       printNetworkConfig(); // prints network configuration (N-Layer).
 
@@ -689,6 +1177,7 @@ public class ABCDEFGHIJKLMN
       {
          System.out.println("minRand: " + minRand);
          System.out.println("maxRand: " + maxRand);
+         System.out.println("seed: " + seed);
       }
 
       System.out.println("activation function: " + f.toString()); // prints the activation function's type.
@@ -710,6 +1199,28 @@ public class ABCDEFGHIJKLMN
          System.out.println("save weights: " + saveWeights);
          System.out.println("save interval: " + saveTime);
          System.out.println("Save to different files: " + savediff);
+         if (starts > 1) // multi-start parameters.
+         {
+            System.out.println("starts: " + starts);
+            System.out.println("warm-up iterations: " + warmup);
+            System.out.println("survivors: " + survivors);
+         }
+         if (validating) // validation parameters.
+         {
+            System.out.println("validation inputs file: " + valInFile);
+            System.out.println("validation truth table file: " + valOutFile);
+            System.out.println("validation cases: " + valCases);
+            System.out.println("validation interval: " + valTime);
+            System.out.println("patience: " + patience);
+         }
+         if (publishTime > 0) // snapshot publication parameters.
+         {
+            System.out.println("publish interval: " + publishTime);
+         }
+         if (servePort > 0)
+         {
+            System.out.println("serving on port: " + servePort);
+         }
          if (saveWeights && !savediff) // print out message if saving weights where to save weights to.
          {
             System.out.println("Will save weights to " + weights2);
@@ -727,7 +1238,7 @@ public class ABCDEFGHIJKLMN
       {
          System.out.println("Will print truth table after run/train");
       }
-   } // public static void echoConfig()
+   } // public void echoConfig()
 
 
 
@@ -741,7 +1252,7 @@ public class ABCDEFGHIJKLMN
  * If running, reports the results of the run.
  * If option is selected, print truth table.
  */
-   public static void reportResults()
+   public void reportResults()
    {
       if (train)
       {
@@ -759,12 +1270,25 @@ public class ABCDEFGHIJKLMN
             }
             System.out.print("Max Iterations Reached");
          }
+         if (stoppedEarly) // report that the validation error stopped improving.
+         {
+            if (hitThreshold || outofOps) // add a comma if an earlier reason for termination was reported.
+            {
+               System.out.println(", ");
+            }
+            System.out.print("Validation Error Stopped Improving");
+         }
          System.out.println();
 
          System.out.println("Iterations Reached: " + iterationsReached); // output the number of iterations training took.
 
          System.out.println("Error Reached: " + errorReached);           // output the error reached at the end of training.
 
+         if (validating) // output the best validation error and when it was reached (the weights kept if stopped early).
+         {
+            System.out.println("Validation Error Reached: " + valErrorReached + " at iteration " + valIterationReached);
+         }
+
          System.out.println();                                           // newline for formatting purposes
 
 
@@ -804,12 +1328,12 @@ public class ABCDEFGHIJKLMN
          }
       } // if (runAfterTrain || (!train))
 
-   } // public static void reportResults()
+   } // public void reportResults()
 
 /*
  * prints the configuration (NLayer) of the network in a pretty-printing format.
  */
-   public static void printNetworkConfig()
+   public void printNetworkConfig()
    {
       System.out.print("Network Configuration: ");
       System.out.print(numNodes[FIRST]);
@@ -822,7 +1346,7 @@ public class ABCDEFGHIJKLMN
 /*
  * prints the weights of the network to the console. 
  */
-   public static void printWeights()
+   public void printWeights()
    {
       System.out.println("Weights: ");
       System.out.println(dumpWeights()); // prints a pretty-printing representation of the weights.
@@ -832,7 +1356,7 @@ public class ABCDEFGHIJKLMN
  * prints a small status message that indicates to the user that the program is running or training
  * (as opposed to the program freezing)
  */
-   public static void printStatus()
+   public void printStatus()
    {
       System.out.println(); // whitespace for clarity
       if (train) // if training print a training status message.
@@ -844,7 +1368,7 @@ public class ABCDEFGHIJKLMN
          System.out.println("Running ...");
       }
       System.out.println(); // whitespace for clarity
-   } // public static void printStatus()
+   } // public void printStatus()
 
 
 /******
@@ -854,7 +1378,7 @@ public class ABCDEFGHIJKLMN
 /*
  * wrapper for activation function --> f(x)
  */
-   public static double act(double x)
+   public double act(double x)
    {
       return f.funct(x);
    }
@@ -862,7 +1386,7 @@ public class ABCDEFGHIJKLMN
 /*
  * wrapper for derivative of activation function --> f'(x)
  */
-   public static double fprime(double x)
+   public double fprime(double x)
    {
       return f.derivative(x); // (f(x)*(1-f(x)) --> f prime with a sigmoid function.
    }
@@ -879,7 +1403,7 @@ public class ABCDEFGHIJKLMN
  * calculates psi sub i values and stores them. (used for train).
  * takes the current test case (to reference truth table to calculate psis).
  */
-   public static void recalculate(int curCase)
+   public void recalculate(int curCase)
    {
       double thetasubi;
 
@@ -900,12 +1424,12 @@ public class ABCDEFGHIJKLMN
          a[outputlayer][i] = act(thetasubi);
          psi[outputlayer][i] = (expectedOutputs[curCase][i] - a[outputlayer][i]) * fprime(thetasubi);
       }
-   } // public static void recalculate(int curCase)
+   } // public void recalculate(int curCase)
 
 /*
  * runs the network and stores the resulting activations based on the stored input.
  */
-   public static void recalculateForRun()
+   public void recalculateForRun()
    {
       for (int alpha = SECOND; alpha < numActLayers; alpha++) // iterate from 2nd act layer to last act layer (first doesn't need to recalculate b/c it is input!)
       {
@@ -914,14 +1438,14 @@ public class ABCDEFGHIJKLMN
             a[alpha][j] = act(theta(alpha, j));
          }
       }
-   } // public static void recalculateForRun()
+   } // public void recalculateForRun()
 
 
 
 /*
  * calculates the dot product (theta) for node j on activation layer alpha.
  */
-   public static double theta(int alpha, int j)
+   public double theta(int alpha, int j)
    {
       double sum = 0.0;
       for (int k = 0; k < numNodes[alpha-1]; k++) // calculates the dot product of the input activations and the edges leading to node j.
@@ -929,26 +1453,26 @@ public class ABCDEFGHIJKLMN
          sum += a[alpha-1][k] * wAll[alpha-1][k][j]; // takes the nodes from the previous activation layer when calculating theta (weights indexed accordingly).
       }
       return sum;
-   } // public static double theta(int alpha, int j)
+   } // public double theta(int alpha, int j)
 
 
 /*
  * takes in a set of inputs and sets the current stored input to the given input.
  */
-   public static void input(double[] am)
+   public void input(double[] am)
    {
       for (int m = 0; m < numNodes[FIRST]; m++) // set input activation layer to the given inputs.
       {
          a[FIRST][m] = am[m];
       }
-   } // public static void input(double[] am)
+   } // public void input(double[] am)
 
 
 
 /*
  * runs the network on a given set of input activations.
  */
-   public static void getOutput(double[] inp)
+   public void getOutput(double[] inp)
    {
       input(inp);    // inputs the given set of values.
       recalculateForRun(); // runs the network.
@@ -964,7 +1488,7 @@ public class ABCDEFGHIJKLMN
 /*
  * calculates the delta w values for the network and applies them.
  */
-   public static void calcDeltas()
+   public void calcDeltas()
    {
       double Omega;
       double Psik;
@@ -1003,7 +1527,7 @@ public class ABCDEFGHIJKLMN
             wAll[CON1][m][k] += lambda * a[FIRST][m] * Psik;
          }
       } // for (int k = 0; k < numNodes[SECOND]; k++)
-   } // public static void calcDeltas()
+   } // public void calcDeltas()
 
 
 
@@ -1014,20 +1538,20 @@ public class ABCDEFGHIJKLMN
  *    run the network on the given truth table index.
  *    calculate and apply delta ws.
  */
-   public static void trainProcedure(int truthtableindex)
+   public void trainProcedure(int truthtableindex)
    {
       input(givenInputs[truthtableindex]);
       recalculate(truthtableindex); // runs the network.
 
       calcDeltas();
-   } // public static void trainProcedure(int truthtableindex)
+   } // public void trainProcedure(int truthtableindex)
 
 
 
 /*
  * calculates the average error bound of the network through all the test cases. (Deprecated)
  */
-   public static double calcError()
+   public double calcError()
    {
       double omegai;
       double ret = 0.0;
@@ -1044,12 +1568,12 @@ public class ABCDEFGHIJKLMN
       ret /= (double) numCases; // Divide by numCases to get average error. (note: cast to double b/c numCases is an int)
 
       return ret;
-   } // public static double calcError()
+   } // public double calcError()
 
 /*
  * calculates the error for the given test case.
  */
-   public static double caseError(int testcase)
+   public double caseError(int testcase)
    {
       double omegai;
       double ret = 0.0;
@@ -1060,7 +1584,7 @@ public class ABCDEFGHIJKLMN
          ret += 0.5 * omegai * omegai;                              // add error for this output to total error.
       }
       return ret;
-   } // public static double caseError(int testcase)
+   } // public double caseError(int testcase)
 
 
 
@@ -1070,23 +1594,53 @@ public class ABCDEFGHIJKLMN
 
 /*
  * populates the weights of the network with random values within the range of the configuration parameters.
+ * Each block of ROWBLOCK rows of a layer gets its own generator, split off the seed in a fixed order, so the weights
+ * only depend on the seed no matter how the blocks are scheduled. Large layers fill their blocks in parallel.
+ */
+   public void populateRand()
+   {
+      SplittableRandom root = new SplittableRandom(seed); // every block generator is split from this one.
+      IntStream blocks;
+
+      for (int n = 0; n < numLayers; n++)
+      {
+         final int layer = n;                                                                     // layer for the lambda below.
+         final SplittableRandom[] rngs = new SplittableRandom[(numNodes[n] + ROWBLOCK - 1) / ROWBLOCK]; // one per row block.
+
+         for (int block = 0; block < rngs.length; block++) // split in order before any block is filled.
+         {
+            rngs[block] = root.split();
+         }
+
+         blocks = IntStream.range(0, rngs.length);
+
+         if (numNodes[n] * numNodes[n+1] >= PARALLELWEIGHTS) // not worth the threads for small layers.
+         {
+            blocks = blocks.parallel();
+         }
+
+         blocks.forEach(block -> populateBlock(layer, block, rngs[block]));
+      } // for (int n = 0; n < numLayers; n++)
+   } // public void populateRand()
+
+/*
+ * populates rows block*ROWBLOCK up to (block+1)*ROWBLOCK of weight layer n with values between minRand and maxRand
+ * drawn from the given generator.
  */
-   public static void populateRand()
+   public void populateBlock(int n, int block, SplittableRandom rng)
    {
       double range = maxRand-minRand; // range size of the random number to help calculate range.
       double offset = minRand;        // offset of the random number to help calculate range.
+      int lastRow = Math.min(numNodes[n], (block + 1) * ROWBLOCK);
 
-      for (int n = 0; n < numLayers; n++)
+      for (int k = block * ROWBLOCK; k < lastRow; k++) // populate weights from act layer alpha = n to alpha = n+1.
       {
-         for (int k = 0; k < numNodes[n]; k++) // populate weights from act layer alpha = n to alpha = n+1.
+         for (int j = 0; j < numNodes[n+1]; j++)
          {
-            for (int j = 0; j < numNodes[n+1]; j++)
-            {
-               wAll[n][k][j] = Math.random() * range + offset; // random number between minRand and maxRand.
-            }
+            wAll[n][k][j] = rng.nextDouble() * range + offset; // random number between minRand and maxRand.
          }
       }
-   } // public static void populateRand()
+   } // public void populateBlock(int n, int block, SplittableRandom rng)
 
 
 
@@ -1098,7 +1652,7 @@ public class ABCDEFGHIJKLMN
 /*
  * returns a pretty-printing string of the truth table. 
  */
-   public static String dumpTruthTable()
+   public String dumpTruthTable()
    {
       String ret = "";
 
@@ -1119,14 +1673,14 @@ public class ABCDEFGHIJKLMN
       } // for (int cases = 0; cases < numCases; cases++)
       
       return ret;
-   } // public static String dumpTruthTable()
+   } // public String dumpTruthTable()
 
 
 
 /*
  * returns all the edge weights as a pretty printing string.
  */
-   public static String dumpWeights()
+   public String dumpWeights()
    {
       String ret = "";
 
@@ -1150,14 +1704,14 @@ public class ABCDEFGHIJKLMN
       ret += "\n";
 
       return ret;
-   } // public static String dumpWeights()
+   } // public String dumpWeights()
 
 
 
 /*
  * returns all the activation values as a string. Used for DEBUG.
  */
-   public static String dumpVals()
+   public String dumpVals()
    {
       String ret = "";
 
@@ -1171,6 +1725,6 @@ public class ABCDEFGHIJKLMN
       }
 
       return ret;
-   } // public static String dumpVals()
+   } // public String dumpVals()
 
 } // public class ABCDEFGHIJKLMN
\ No newline at end of file
@@ -1,4 +1,6 @@
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
 /*
  * aggregates and compresses all of the given bin representations of bmp files into one big bin file scaled from zero to one.
  */
@@ -8,22 +10,16 @@ public class Aggregate
 {
    public static final String OUTPUTFILE = "tests.bin";
    public static final String OUTPUTIMGS = "imgs.bin";
+   public static final int IMGWIDTH = 100;  // width of every image.
+   public static final int IMGHEIGHT = 100; // height of every image.
 /*
  * aggregates given input img bin files into one output bin file.
  */
    public static void main(String[] args) throws IOException
    {
-      DataInputStream b;
       DataInputStream da;
-      byte[] bytes = new byte[100*100];
-      ByteArrayOutputStream out = new ByteArrayOutputStream();
-      DataOutputStream dab = new DataOutputStream(out);
-      File f = new File(OUTPUTFILE);
-      DataOutputStream realout = new DataOutputStream(new FileOutputStream(f));
-
-      File fa = new File(OUTPUTIMGS);
-      ByteArrayOutputStream ba = new ByteArrayOutputStream();
-      DataOutputStream outs = new DataOutputStream(ba);
+      byte[] bytes = new byte[IMGWIDTH*IMGHEIGHT];
+      ArrayList<byte[]> images = new ArrayList<byte[]>();
 
       for (String s : args)
       {
@@ -32,27 +28,30 @@ public class Aggregate
          da.read(bytes);
          da.close();
 
+         images.add(bytes.clone());
+      }
 
+      writeDataset(images);
+   }
 
-         b = new DataInputStream(new ByteArrayInputStream(bytes));
-         int rows = 0;
-         byte temp;
-         for (int row = 0; row < 100; row+=1)
-         {
-            rows++;
-            for (int col = 0; col < 100; col+=1)
-            {
-               temp = (byte)b.readUnsignedByte();
-               //System.out.println(temp);
-               dab.writeDouble((double)temp/(255.0));
-               outs.writeByte(temp);
-            }
-         }
-
-
-
+/*
+ * writes the given images (IMGWIDTH*IMGHEIGHT bytes each, in order) to the output files: every byte as a double divided
+ * by 255 to OUTPUTFILE and every byte as is to OUTPUTIMGS.
+ */
+   public static void writeDataset(List<byte[]> images) throws IOException
+   {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      DataOutputStream dab = new DataOutputStream(out);
+      File f = new File(OUTPUTFILE);
+      DataOutputStream realout = new DataOutputStream(new FileOutputStream(f));
 
+      File fa = new File(OUTPUTIMGS);
+      ByteArrayOutputStream ba = new ByteArrayOutputStream();
+      DataOutputStream outs = new DataOutputStream(ba);
 
+      for (byte[] bytes : images)
+      {
+         writeImage(bytes, dab, outs);
       }
       System.out.println("Writing to " + OUTPUTFILE);
       outs = new DataOutputStream(new FileOutputStream(OUTPUTIMGS));
@@ -66,5 +65,26 @@ public class Aggregate
       dab.close();
 
 
-   }
+   } // public static void writeDataset(List<byte[]> images) throws IOException
+
+/*
+ * appends the given image (IMGWIDTH*IMGHEIGHT bytes) to the dataset: every byte as a double divided by 255 to tests
+ * and every byte as is to imgs.
+ */
+   public static void writeImage(byte[] bytes, DataOutputStream tests, DataOutputStream imgs) throws IOException
+   {
+      DataInputStream b = new DataInputStream(new ByteArrayInputStream(bytes));
+      byte temp;
+
+      for (int row = 0; row < IMGHEIGHT; row+=1)
+      {
+         for (int col = 0; col < IMGWIDTH; col+=1)
+         {
+            temp = (byte)b.readUnsignedByte();
+            //System.out.println(temp);
+            tests.writeDouble((double)temp/(255.0));
+            imgs.writeByte(temp);
+         }
+      }
+   } // public static void writeImage(byte[] bytes, DataOutputStream tests, DataOutputStream imgs) throws IOException
 }
\ No newline at end of file
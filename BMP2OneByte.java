@@ -4,6 +4,8 @@
  **
  * @author EricN
  * Luke Zeng, Edited 4/24/2024, added buffering to file IO to improve processing speed.
+ * Luke Zeng, Edited 10/19/2026, the pels are decoded by BMPDecoder (bulk scan line decoding from the file mapped into memory).
+ * Luke Zeng, Edited 10/19/2026, colorToGrayscale() looks the gray level up in the tables of PelArray.grayLevel().
  *
  * September 25, 2023
  *
@@ -212,9 +214,7 @@ public class BMP2OneByte
     */
    public int colorToGrayscale(int pel)
    {
-      RgbQuad rgb = pelToRGB(pel);
-
-      int lum = (int)Math.round(0.3 * (double)rgb.red + 0.589 * (double)rgb.green + 0.11 * (double)rgb.blue);
+      int lum = PelArray.grayLevel(pel); // the same formula, looked up in tables
 
       return rgbToPel(lum, lum, lum);
    }
@@ -226,20 +226,10 @@ public class BMP2OneByte
    public static void main(String[] args)
    {
       String inFileName, outFileName;
-      int i, j, k;
+      int i, j;
       int numberOfColors;
-      byte byteVal;
-      byte byteV;
-      byte byteVs;
       int pel;
-      int iByteVal, iColumn, iBytesPerRow, iPelsPerRow, iTrailingBits, iDeadBytes;
-// RBGQUAD
-      int rgbQuad_rgbBlue;
-      int rgbQuad_rgbGreen;
-      int rgbQuad_rgbRed;
-      int rgbQuad_rgbReserved;           // not used in this method
-// The color table
-      int[] colorPallet = new int[256];  // reserve space for the largest possible color table
+      int iBytesPerRow;
 
 
       BMP2OneByte dibdumper = new BMP2OneByte(); // needed to get to the byte swapping methods
@@ -492,290 +482,12 @@ typedef RGBQUAD FAR* LPRGBQUAD;
             bmpInfoHeader_biSize = 40; // Must fix the size to thew correct value for our header
          }
 
-         for (i = 0; i < numberOfColors; ++i) // Read in the color table (or not if numberOfColors is zero)
-         {
-            rgbQuad_rgbBlue      = in.readUnsignedByte(); // lowest byte in the color
-            rgbQuad_rgbGreen     = in.readUnsignedByte();
-            rgbQuad_rgbRed       = in.readUnsignedByte(); // highest byte in the color
-            rgbQuad_rgbReserved  = in.readUnsignedByte();
-
-            // Build the color from the RGB values. Since we declared the rgbQuad values to be int, we can shift and then OR the values
-            // to build up the color. Since we are reading one byte at a time, there are no "endian" issues.
-
-            colorPallet[i] = (rgbQuad_rgbRed << 16) | (rgbQuad_rgbGreen << 8) | rgbQuad_rgbBlue;
-// System.out.printf("DEBUG: Color Table = %d, %06X\n", i, colorPallet[i]);
-         } // for (i = 0; i < numberOfColors; ++i)
-
          /*
-          * Now for the fun part. We need to read in the rest of the bit map, but how we interpret the values depends on the color depth.
-          *
-          * numberOfColors = 2:   Each bit is a pel, so there are 8 pels per byte. The Color Table has only two values for "black" and "white"
-          * numberOfColors = 4:   Each pair of bits is a pel, so there are 4 pels per byte. The Color Table has only four values
-          * numberOfColors = 16;  Each nibble (4 bits) is a pel, so there are 2 pels per byte. The Color Table has 16 entries.
-          * numberOfColors = 256; Each byte is a pel and the value maps into the 256 byte Color Table.
-          *
-          * Any other value is read in as "true" color.
-          *
-          * The BMP image is stored from bottom to top, meaning that the first scan line is the last scan line in the image.
-          *
-          * The rest is the bitmap. Use the height and width information to read it in. And as I mentioned before....
-          * In the 32-bit format, each pixel in the image is represented by a series of four bytes of RGB stored as xBRG,
-          * where the 'x' is an unused byte. For ALL image types each scan line is padded to an even 4-byte boundary.
-          *
+          * The color table and the bitmap are decoded by BMPDecoder, which maps the file into memory and decodes a whole scan
+          * line at a time with a loop for each color depth, bands of scan lines in parallel. The pels come back with the top row
+          * first, however the image was stored.
           */
-
-         imageArray = new int[bmpInfoHeader_biHeight][bmpInfoHeader_biWidth]; // Create the array for the pels
-         byte[] buff = new byte[bmpFileHeader_bfSize];
-         in.read(buff);
-         in.close();
-         in = new DataInputStream(new ByteArrayInputStream(buff));
-         /*
-          * I use the same loop structure for each case for clarity so you can see the similarities and differences.
-          * The outer loop is over the rows (in reverse), the inner loop over the columns.
-          */
-         switch (bmpInfoHeader_biBitCount)
-         {
-            case 1: // each bit is a color, so there are 8 pels per byte.  Works
-               /*
-                * Each byte read in is 8 columns, so we need to break them out. We also have to deal with the case
-                * where the image width is not an integer multiple of 8, in which case we will
-                * have bits from part of the remaining byte. Each color is 1 bit which is masked with 0x01.
-                * The screen ordering of the pels is High-Bit to Low-Bit, so the most significant element is first in the array of pels.
-                */
-               iBytesPerRow = bmpInfoHeader_biWidth / 8;
-               iTrailingBits = bmpInfoHeader_biWidth % 8;
-
-               iDeadBytes = iBytesPerRow;
-               if (iTrailingBits > 0) ++iDeadBytes;
-               iDeadBytes = (4 - iDeadBytes % 4) % 4;
-
-               for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
-               {
-                  if (topDownDIB) i = row; else i = bmpInfoHeader_biHeight - 1 - row;
-
-                  for (j = 0; j < iBytesPerRow; ++j)
-                  {
-                     iByteVal = in.readUnsignedByte();
-
-                     for (k = 0; k < 8; ++k)     // Get 8 pels from the one byte
-                     {
-                        iColumn = j * 8 + k;
-                        pel = colorPallet[(iByteVal >> (7 - k)) & 0x01];
-                        imageArray[i][iColumn] = pel;
-                     }
-                  }
-                  if (iTrailingBits > 0) // pick up the trailing bits for images that are not mod 8 columns wide
-                  {
-                     iByteVal = in.readUnsignedByte();
-
-                     for (k = 0; k < iTrailingBits; ++k)
-                     {
-                        iColumn = iBytesPerRow * 8 + k;
-                        pel = colorPallet[(iByteVal >> (7 - k)) & 0x01];
-                        imageArray[i][iColumn] = pel;
-                     }
-                  }
-
-                  for (j = 0; j < iDeadBytes; ++j) in.readUnsignedByte(); // Now read in the "dead bytes" to pad to a 4 byte boundary
-               }
-               break;
-            case 2: // 4 colors, Each byte is 4 pels (2 bits each),  Should work, not tested.
-               /*
-                * Each byte read in is 4 columns, so we need to break them out. We also have to deal with the case
-                * where the image width is not an integer multiple of 4, in which case we will
-                * have from 2 to 6 bits of the remaining byte. Each color is 2 bits which is masked with 0x03.
-                * The screen ordering of the pels is High-Half-Nibble to Low-Half-Nibble, so the most significant element is first in the array of pels.
-                */
-               iBytesPerRow = bmpInfoHeader_biWidth / 4;
-               iTrailingBits = bmpInfoHeader_biWidth % 4; // 0, 1, 2 or 3
-
-               iDeadBytes = iBytesPerRow;
-               if (iTrailingBits > 0) ++iDeadBytes;
-               iDeadBytes = (4 - iDeadBytes % 4) % 4;
-
-               for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
-               {
-                  if (topDownDIB) i = row; else i = bmpInfoHeader_biHeight - 1 - row;
-
-                  for (j = 0; j < iBytesPerRow; ++j)
-                  {
-                     iByteVal = in.readUnsignedByte();
-
-                     for (k = 0; k < 4; ++k) // Get 4 pels from one byte
-                     {
-                        iColumn = j * 4 + k;
-                        pel = colorPallet[(iByteVal >> ((3 - k) * 2)) & 0x03]; // shift 2 bits at a time and reverse order
-                        imageArray[i][iColumn] = pel;
-                     }
-                  }
-                  if (iTrailingBits > 0) // pick up the trailing nibble for images that are not mod 2 columns wide
-                  {
-                     iByteVal = in.readUnsignedByte();
-
-                     for (k = 0; k < iTrailingBits; ++k)
-                     {
-                        iColumn = iBytesPerRow * 4 + k;
-                        pel = colorPallet[(iByteVal >> ((3 - k) * 2)) & 0x03];
-                        imageArray[i][iColumn] = pel;
-                     }
-                  }
-                  for (j = 0; j < iDeadBytes; ++j) in.readUnsignedByte(); // Now read in the "dead bytes" to pad to a 4 byte boundary
-               }
-               break;
-            case 4: // 16 colors, Each byte is two pels. Works
-               /*
-                * Each byte read in is 2 columns, so we need to break them out. We also have to deal with the case
-                * where the image width is not an integer multiple of 2, in which case we will
-                * have one nibble from part of the remaining byte. We then read in the dead bytes so that each
-                * scan line is a multiple of 4 bytes. Each color is a nibble (4 bits) which is masked with 0x0F.
-                * The screen ordering of the pels is High-Nibble Low-Nibble, so the most significant element is first in the array of pels.
-                */
-               iPelsPerRow   = bmpInfoHeader_biWidth;
-               iBytesPerRow  = iPelsPerRow / 2;
-               iTrailingBits = iPelsPerRow % 2;  // Will either be 0 or 1
-
-               iDeadBytes = iBytesPerRow;
-               if (iTrailingBits > 0) ++iDeadBytes;
-               iDeadBytes = (4 - iDeadBytes % 4) % 4;
-
-               for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
-               {
-                  if (topDownDIB) i = row; else i = bmpInfoHeader_biHeight - 1 - row;
-
-                  for (j = 0; j < iBytesPerRow; ++j)
-                  {
-                     iByteVal = in.readUnsignedByte();
-
-                     for (k = 0; k < 2; ++k) // Two pels per byte
-                     {
-                        iColumn = j * 2 + k;          // 1 - k  is needed to have High, Low nibble ordering for the image.
-                        pel = colorPallet[(iByteVal >> ((1 - k) * 4)) & 0x0F]; // shift 4 bits at a time
-                        imageArray[i][iColumn] = pel;
-                     }
-                  }
-
-                  if (iTrailingBits > 0) // pick up the trailing nibble for images that are not mod 2 columns wide
-                  {
-                     iByteVal = in.readUnsignedByte();
-
-                     iColumn = iBytesPerRow * 2;
-                     pel = colorPallet[(iByteVal >> 4) & 0x0F]; // The High nibble is the last remaining pel
-                     imageArray[i][iColumn] = pel;
-                  }
-                  for (j = 0; j < iDeadBytes; ++j) in.readUnsignedByte(); // Now read in the "dead bytes" to pad to a 4 byte boundary
-               } // for (i = bmpInfoHeader_biHeight - 1; i >= 0; --i)
-               break;
-            case 8: // 1 byte, 1 pel, Works
-               /*
-                * Each byte read in is 1 column. We then read in the dead bytes so that each scan line is a multiple of 4 bytes.
-                */
-               iPelsPerRow = bmpInfoHeader_biWidth;
-               iDeadBytes = (4 - iPelsPerRow % 4) % 4;
-               for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
-               {
-                  if (topDownDIB) i = row; else i = bmpInfoHeader_biHeight - 1 - row;
-
-                  for (j = 0; j < iPelsPerRow; ++j)         // j is now just the column counter
-                  {
-                     iByteVal = in.readUnsignedByte();
-                     pel = colorPallet[iByteVal];
-                     imageArray[i][j] = pel;
-                  }
-
-                  for (j = 0; j < iDeadBytes; ++j) in.readUnsignedByte(); // Now read in the "dead bytes" to pad to a 4 byte boundary
-               }
-               break;
-            case 16: // Not likely to work (format is not internally consistent), not tested.
-               /*
-                * Each two bytes read in is 1 column. Each color is 5 bits in the 2 byte word value, so we shift 5 bits and then mask them
-                * off with 0x1F which is %11111 in binary. We then read in the dead bytes so that each scan line is a multiple of 4 bytes.
-                */
-               iPelsPerRow = bmpInfoHeader_biWidth;
-               iDeadBytes = (4 - iPelsPerRow % 4) % 4;
-               for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
-               {
-                  if (topDownDIB) i = row; else i = bmpInfoHeader_biHeight - 1 - row;
-
-                  for (j = 0; j < iPelsPerRow; ++j)         // j is now just the column counter
-                  {
-                     pel = dibdumper.swapShort(in.readUnsignedShort()); // Need to deal with little endian values
-                     rgbQuad_rgbBlue      =  pel        & 0x1F;
-                     rgbQuad_rgbGreen     = (pel >> 5)  & 0x1F;
-                     rgbQuad_rgbRed       = (pel >> 10) & 0x1F;
-                     pel = (rgbQuad_rgbRed << 16) | (rgbQuad_rgbGreen << 8) | rgbQuad_rgbBlue;
-                     imageArray[i][j] = pel;
-                  }
-
-                  for (j = 0; j < iDeadBytes; ++j) in.readUnsignedByte(); // Now read in the "dead bytes" to pad to a 4 byte boundary
-               } // for (i = bmpInfoHeader_biHeight - 1; i >= 0; --i)
-               break;
-            case 24: // Works
-               System.out.println("start");
-               /*
-                * Each three bytes read in is 1 column. Each scan line is padded to by a multiple of 4 bytes. The disk image has only 3 however.
-                */
-               iPelsPerRow = bmpInfoHeader_biWidth;
-               iDeadBytes = (4 - (iPelsPerRow * 3) % 4) % 4;
-
-               if (topDownDIB)
-               for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
-               {
-
-
-                  for (j = 0; j < iPelsPerRow; ++j)         // j is now just the column counter
-                  {
-                     rgbQuad_rgbBlue      = in.readUnsignedByte();
-                     rgbQuad_rgbGreen     = in.readUnsignedByte();
-                     rgbQuad_rgbRed       = in.readUnsignedByte();
-                     pel = (rgbQuad_rgbRed << 16) | (rgbQuad_rgbGreen << 8) | rgbQuad_rgbBlue;
-                     imageArray[row][j] = pel;
-                     //System.out.println(row + " " + j);
-                  }
-                  for (j = 0; j < iDeadBytes; ++j) in.readUnsignedByte(); // Now read in the "dead bytes" to pad to a 4 byte boundary
-               }
-               else
-               for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
-               {
-
-
-                  for (j = 0; j < iPelsPerRow; ++j)         // j is now just the column counter
-                  {
-                     rgbQuad_rgbBlue      = in.readUnsignedByte();
-                     rgbQuad_rgbGreen     = in.readUnsignedByte();
-                     rgbQuad_rgbRed       = in.readUnsignedByte();
-                     pel = (rgbQuad_rgbRed << 16) | (rgbQuad_rgbGreen << 8) | rgbQuad_rgbBlue;
-                     imageArray[bmpInfoHeader_biHeight - 1 - row][j] = pel;
-                     //System.out.println(bmpInfoHeader_biHeight - 1 - row + " " + j);
-                  }
-                  for (j = 0; j < iDeadBytes; ++j) in.readUnsignedByte(); // Now read in the "dead bytes" to pad to a 4 byte boundary
-               }
-
-               System.out.println("end");
-               break;
-            case 32: // Works
-               /*
-                * Each four bytes read in is 1 column. The number of bytes per line will always be a multiple of 4, so there are no dead bytes.
-                */
-               iPelsPerRow = bmpInfoHeader_biWidth;
-               for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
-               {
-                  if (topDownDIB) i = row; else i = bmpInfoHeader_biHeight - 1 - row;
-
-                  for (j = 0; j < iPelsPerRow; ++j)         // j is now just the column counter
-                  {
-                     rgbQuad_rgbBlue      = in.readUnsignedByte();
-                     rgbQuad_rgbGreen     = in.readUnsignedByte();
-                     rgbQuad_rgbRed       = in.readUnsignedByte();
-                     rgbQuad_rgbReserved  = in.readUnsignedByte();
-                     pel =  (rgbQuad_rgbReserved << 24) |(rgbQuad_rgbRed << 16) | (rgbQuad_rgbGreen << 8) | rgbQuad_rgbBlue;
-                     imageArray[i][j] = pel;
-                  }
-               }
-               break;
-            default: // Oops
-               System.out.printf("This error should not occur - 1!\n");
-
-         } // switch (bmpInfoHeader_biBitCount)
+         imageArray = BMPDecoder.decodeParallel(inFileName);
 
          in.close();
          fstream.close();
@@ -809,8 +521,7 @@ typedef RGBQUAD FAR* LPRGBQUAD;
       try
       {
          FileOutputStream fstream = new FileOutputStream(outFileName);
-         ByteArrayOutputStream b = new ByteArrayOutputStream();
-         DataOutputStream out = new DataOutputStream(b);
+         byte[] bytes = new byte[bmpInfoHeader_biHeight * bmpInfoHeader_biWidth * 3]; // blue, green, red for every pel
 
          int N = 0;
          for (i = bmpInfoHeader_biHeight - 1; i >= 0; --i)    // write over the rows (in the usual inverted format)
@@ -826,22 +537,14 @@ typedef RGBQUAD FAR* LPRGBQUAD;
                */
 
 
-               out.writeByte((byte)((pel) & 0xFF));
-               out.writeByte((byte)((pel>>8) & 0xFF));
-               out.writeByte((byte)((pel>>16) & 0xFF));
-
-
-               N++;
+               bytes[N++] = (byte)((pel) & 0xFF);
+               bytes[N++] = (byte)((pel>>8) & 0xFF);
+               bytes[N++] = (byte)((pel>>16) & 0xFF);
             }
          } // for (i = bmpInfoHeader_biHeight - 1; i >= 0; --i)
 
 
-         byte[] bytes = b.toByteArray();
-         out.close();
-         b.close();
-         DataOutputStream oust = new DataOutputStream(fstream);
-         oust.write(bytes);
-         oust.close();
+         fstream.write(bytes); // the whole image in one write
          fstream.close();
       }
       catch (Exception e)
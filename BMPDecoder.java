@@ -0,0 +1,752 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Author: Luke Zeng
+ * Date of Creation: 10/19/2026
+ *
+ * Description: Decodes a BMP file of any of the formats BMP2OneByte reads (1, 2, 4, 8, 16, 24 and 32 bits per pel) into pels
+ *              (0x00RRGGBB, row 0 at the top of the image), in memory. The header handling, the color table handling and the
+ *              pel values are the ones of BMP2OneByte, with the header kept in an instance instead of static fields so any
+ *              number of images can be decoded at the same time.
+ *
+ *              The file is mapped into memory (or wrapped, if it is already in a byte array) as a little endian ByteBuffer,
+ *              so the header is read with indexed gets instead of byte swapping a stream. Every scan line starts at a fixed
+ *              stride from the one before it, so each one is copied out with one bulk get and decoded by a loop written for
+ *              its bit depth. The pels can be decoded into one flat array (width * height, row by row) or into an array
+ *              of rows for PelArray.
+ *
+ *              Since every scan line is at a known place in the file, the scan lines don't have to be decoded in order:
+ *              the parallel reads split the rows into bands that are decoded on a fork join pool, each band into its own
+ *              rows of the result.
+ *
+ *              For gray scale work the pels can also be decoded straight into a luminance plane of one byte per pel
+ *              (readGray), with the gray level PelArray.grayScalePel gives. Only one row of pels is held at a time, so
+ *              the image never exists as ints: a quarter of the memory of int pels (see GrayPelArray).
+ *
+ *              Since each scan line is at a known place, a window of the image can also be decoded without the rest of it
+ *              (readWindow): only the scan lines of its rows are read, and of each of them only the bytes of its columns.
+ *              A sampled read (readSampled) decodes one pel in every step by step block the same way, a cheap low resolution
+ *              pass that can find where the window is (see ToIntArray.preprocessWindow).
+ *
+ *              Nothing is printed; a file that ends before the image does throws an IOException.
+ *
+ * Table of Contents:
+ *    public static int[][] decode(String filename) throws IOException
+ *    public static int[][] decodeParallel(String filename) throws IOException
+ *    public static byte[] decodeGray(String filename) throws IOException
+ *    public static ByteBuffer map(String filename) throws IOException
+ *    public int[][] read(String filename) throws IOException
+ *    public int[][] read(byte[] file) throws IOException
+ *    public int[][] read(ByteBuffer buf) throws IOException
+ *    public int[][] readRows(ByteBuffer buf, int firstRow, int endRow)
+ *    public int[][] readWindow(ByteBuffer buf, int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+ *    public int[][] readSampled(ByteBuffer buf, int step)
+ *    public int[] readFlat(String filename) throws IOException
+ *    public int[] readFlat(ByteBuffer buf) throws IOException
+ *    public int[][] readParallel(ByteBuffer buf, ForkJoinPool pool) throws IOException
+ *    public int[] readFlatParallel(ByteBuffer buf, ForkJoinPool pool) throws IOException
+ *    public int[] readFlatParallel(ByteBuffer buf, ForkJoinPool pool, int[] pels) throws IOException
+ *    public byte[] readGray(ByteBuffer buf) throws IOException
+ *    public byte[] readGrayParallel(ByteBuffer buf, ForkJoinPool pool) throws IOException
+ *    public void readHeader(ByteBuffer buf) throws IOException
+ *    public void readColorTable(ByteBuffer buf)
+ *    public void buildPackedPels()
+ *    public void decodeRow(ByteBuffer buf, byte[] line, int row, int[] dst, int dstOffset)
+ *    public void decodeColumns(ByteBuffer buf, byte[] line, int row, int firstCol, int endCol, int[] dst, int dstOffset)
+ *    public void decodePacked(byte[] line, int[] dst, int dstOffset)
+ *    public void decode8(byte[] line, int[] dst, int dstOffset)
+ *    public void decode8(byte[] line, int[] dst, int dstOffset, int count)
+ *    public void decode16(byte[] line, int[] dst, int dstOffset)
+ *    public void decode16(byte[] line, int[] dst, int dstOffset, int count)
+ *    public void decode24(byte[] line, int[] dst, int dstOffset)
+ *    public void decode24(byte[] line, int[] dst, int dstOffset, int count)
+ *    public void decode32(byte[] line, int[] dst, int dstOffset)
+ *    public void decode32(byte[] line, int[] dst, int dstOffset, int count)
+ *    public static void toGray(int[] pels, int count, byte[] dst, int dstOffset)
+ *    public static int gray(int pel)
+ *    public int fileRow(int row)
+ */
+
+public class BMPDecoder
+{
+   public static final int BM = 0x424D;          // bfType of a BMP file (the letters BM, read big endian).
+   public static final int FILEHEADERSIZE = 14;  // bytes in the BITMAPFILEHEADER.
+   public static final int INFOHEADERSIZE = 40;  // biSize of the BITMAPINFOHEADER this decoder understands.
+   public static final int MAXCOLORS = 256;      // largest possible color table.
+   public static final int ROWALIGN = 4;         // every scan line is padded to a multiple of this many bytes.
+   public static final int BANDROWS = 64;        // rows decoded by one task of a parallel read (bands are split no further).
+
+   public int bfType;         // BITMAPFILEHEADER
+   public int bfSize;
+   public int bfOffBits;
+   public int biSize;         // BITMAPINFOHEADER
+   public int width;          // biWidth
+   public int height;         // biHeight (made positive, see topDown).
+   public int bitCount;       // biBitCount
+   public int biCompression;
+   public int biClrUsed;
+   public boolean topDown;    // true if biHeight was negative (the first scan line in the file is the top of the image).
+   public int numberOfColors; // number of entries in the color table (0 for true color images).
+   public int[] colorPallet = new int[MAXCOLORS]; // the color table.
+   public int[] packedPels;   // the pels of every byte value of a 1, 2 or 4 bit scan line, 8 / bitCount per byte (see readColorTable).
+   public int pelStart;       // index in the file of the first scan line (right after the color table, where BMP2OneByte reads it).
+   public int lineBytes;      // bytes of pels in a scan line.
+   public int stride;         // bytes from the start of one scan line to the next (lineBytes padded to ROWALIGN).
+
+/*
+ * returns the pels of the given BMP file.
+ */
+   public static int[][] decode(String filename) throws IOException
+   {
+      return new BMPDecoder().read(filename);
+   }
+
+/*
+ * returns the pels of the given BMP file, decoding bands of rows in parallel on the common fork join pool.
+ */
+   public static int[][] decodeParallel(String filename) throws IOException
+   {
+      return new BMPDecoder().readParallel(map(filename), ForkJoinPool.commonPool());
+   }
+
+/*
+ * returns the luminance plane of the given BMP file (width * height bytes, row by row from the top), decoding bands of rows
+ * in parallel on the common fork join pool.
+ */
+   public static byte[] decodeGray(String filename) throws IOException
+   {
+      return new BMPDecoder().readGrayParallel(map(filename), ForkJoinPool.commonPool());
+   }
+
+/*
+ * maps the given file into memory, read only (the mapping stays valid after the channel is closed).
+ */
+   public static ByteBuffer map(String filename) throws IOException
+   {
+      try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ))
+      {
+         return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+   }
+
+/*
+ * reads the given BMP file and returns its pels, one array per row.
+ */
+   public int[][] read(String filename) throws IOException
+   {
+      return read(map(filename));
+   }
+
+/*
+ * decodes the given contents of a BMP file and returns its pels, one array per row.
+ */
+   public int[][] read(byte[] file) throws IOException
+   {
+      return read(ByteBuffer.wrap(file));
+   }
+
+/*
+ * decodes the BMP file in the given buffer and returns its pels, one array per row.
+ */
+   public int[][] read(ByteBuffer buf) throws IOException
+   {
+      int[][] pels;
+      byte[] line;
+
+      readHeader(buf);
+      readColorTable(buf);
+
+      pels = new int[height][width];
+      line = new byte[lineBytes];
+
+      for (int row = 0; row < height; row++)
+      {
+         decodeRow(buf, line, row, pels[row], 0);
+      }
+
+      return pels;
+   } // public int[][] read(ByteBuffer buf) throws IOException
+
+/*
+ * decodes the image rows from firstRow up to, but not including, endRow (0 at the top) and returns them, one array per row.
+ * The header and the color table must already be read (readHeader, readColorTable). Only the scan lines of those rows are
+ * read, so a band of a large image can be decoded without the rest of it ever being in memory (see PelBands).
+ */
+   public int[][] readRows(ByteBuffer buf, int firstRow, int endRow)
+   {
+      int[][] pels = new int[endRow - firstRow][width];
+      byte[] line = new byte[lineBytes];
+
+      for (int row = firstRow; row < endRow; row++)
+      {
+         decodeRow(buf, line, row, pels[row - firstRow], 0);
+      }
+
+      return pels;
+   } // public int[][] readRows(ByteBuffer buf, int firstRow, int endRow)
+
+/*
+ * decodes the rectangle of the image from column xUpperLeft, row yUpperLeft to column xLowerRight, row yLowerRight (corners
+ * included, all inside the image) and returns its pels, one array per row. The header and the color table must already be
+ * read (readHeader, readColorTable). Only the bytes of the rectangle are read from the file (see decodeColumns).
+ */
+   public int[][] readWindow(ByteBuffer buf, int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+   {
+      int[][] pels = new int[yLowerRight - yUpperLeft + 1][xLowerRight - xUpperLeft + 1];
+      byte[] line = new byte[lineBytes];
+
+      for (int row = yUpperLeft; row <= yLowerRight; row++)
+      {
+         decodeColumns(buf, line, row, xUpperLeft, xLowerRight + 1, pels[row - yUpperLeft], 0);
+      }
+
+      return pels;
+   } // public int[][] readWindow(ByteBuffer buf, int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+
+/*
+ * returns the pels of every step-th column of every step-th row, starting with row 0 and column 0, one array per sampled row:
+ * the pel at [r][c] is the pel of image row r * step, column c * step. The header and the color table must already be read.
+ * Only the bytes of the sampled pels are read, so it costs about 1 / (step * step) of a full decode.
+ */
+   public int[][] readSampled(ByteBuffer buf, int step)
+   {
+      int[][] pels = new int[(height + step - 1) / step][(width + step - 1) / step];
+      byte[] line = new byte[(bitCount + 7) / 8]; // the bytes of one pel.
+
+      for (int r = 0; r < pels.length; r++)
+      {
+         for (int c = 0; c < pels[r].length; c++)
+         {
+            decodeColumns(buf, line, r * step, c * step, c * step + 1, pels[r], c);
+         }
+      }
+
+      return pels;
+   } // public int[][] readSampled(ByteBuffer buf, int step)
+
+/*
+ * reads the given BMP file and returns its pels in one flat array (width * height, row by row from the top).
+ */
+   public int[] readFlat(String filename) throws IOException
+   {
+      return readFlat(map(filename));
+   }
+
+/*
+ * decodes the BMP file in the given buffer and returns its pels in one flat array (width * height, row by row from the top).
+ */
+   public int[] readFlat(ByteBuffer buf) throws IOException
+   {
+      int[] pels;
+      byte[] line;
+
+      readHeader(buf);
+      readColorTable(buf);
+
+      pels = new int[width * height];
+      line = new byte[lineBytes];
+
+      for (int row = 0; row < height; row++)
+      {
+         decodeRow(buf, line, row, pels, row * width);
+      }
+
+      return pels;
+   } // public int[] readFlat(ByteBuffer buf) throws IOException
+
+/*
+ * decodes the BMP file in the given buffer and returns its luminance plane (width * height bytes, row by row from the top).
+ * The pels of one row are decoded at a time and reduced to their gray levels.
+ */
+   public byte[] readGray(ByteBuffer buf) throws IOException
+   {
+      byte[] gray;
+      byte[] line;
+      int[] pels;
+
+      readHeader(buf);
+      readColorTable(buf);
+
+      gray = new byte[width * height];
+      line = new byte[lineBytes];
+      pels = new int[width];
+
+      for (int row = 0; row < height; row++)
+      {
+         decodeRow(buf, line, row, pels, 0);
+         toGray(pels, width, gray, row * width);
+      }
+
+      return gray;
+   } // public byte[] readGray(ByteBuffer buf) throws IOException
+
+/*
+ * decodes the BMP file in the given buffer on the given pool and returns its pels, one array per row.
+ */
+   public int[][] readParallel(ByteBuffer buf, ForkJoinPool pool) throws IOException
+   {
+      int[][] pels;
+
+      readHeader(buf);
+      readColorTable(buf);
+
+      pels = new int[height][width];
+      pool.invoke(new Band(buf, 0, height, pels, null, null));
+
+      return pels;
+   } // public int[][] readParallel(ByteBuffer buf, ForkJoinPool pool) throws IOException
+
+/*
+ * decodes the BMP file in the given buffer on the given pool and returns its pels in one flat array
+ * (width * height, row by row from the top).
+ */
+   public int[] readFlatParallel(ByteBuffer buf, ForkJoinPool pool) throws IOException
+   {
+      return readFlatParallel(buf, pool, null);
+   }
+
+/*
+ * decodes the BMP file in the given buffer on the given pool into the first width * height pels of the given array
+ * (row by row from the top) and returns it. A new array is used if pels is null or too short.
+ */
+   public int[] readFlatParallel(ByteBuffer buf, ForkJoinPool pool, int[] pels) throws IOException
+   {
+      readHeader(buf);
+      readColorTable(buf);
+
+      if (pels == null || pels.length < width * height)
+      {
+         pels = new int[width * height];
+      }
+
+      pool.invoke(new Band(buf, 0, height, null, pels, null));
+
+      return pels;
+   } // public int[] readFlatParallel(ByteBuffer buf, ForkJoinPool pool, int[] pels) throws IOException
+
+/*
+ * decodes the BMP file in the given buffer on the given pool and returns its luminance plane (width * height bytes,
+ * row by row from the top).
+ */
+   public byte[] readGrayParallel(ByteBuffer buf, ForkJoinPool pool) throws IOException
+   {
+      byte[] gray;
+
+      readHeader(buf);
+      readColorTable(buf);
+
+      gray = new byte[width * height];
+      pool.invoke(new Band(buf, 0, height, null, null, gray));
+
+      return gray;
+   } // public byte[] readGrayParallel(ByteBuffer buf, ForkJoinPool pool) throws IOException
+
+/*
+ * A band of rows (first up to but not including last) of a parallel read, split in half until it is at most BANDROWS rows.
+ * The pels go into rows if it isn't null, otherwise into flat if it isn't null, otherwise into the luminance plane gray.
+ */
+   private class Band extends RecursiveAction
+   {
+      private static final long serialVersionUID = 1L; // RecursiveAction is Serializable; bands never are serialized.
+
+      final ByteBuffer buf;
+      final int first;
+      final int last;
+      final int[][] rows;
+      final int[] flat;
+      final byte[] gray;
+
+      Band(ByteBuffer buf, int first, int last, int[][] rows, int[] flat, byte[] gray)
+      {
+         this.buf = buf;
+         this.first = first;
+         this.last = last;
+         this.rows = rows;
+         this.flat = flat;
+         this.gray = gray;
+      }
+
+      @Override
+      protected void compute()
+      {
+         int middle;
+         ByteBuffer own;
+         byte[] line;
+         int[] pels;
+
+         if (last - first > BANDROWS)
+         {
+            middle = (first + last) >>> 1;
+            invokeAll(new Band(buf, first, middle, rows, flat, gray), new Band(buf, middle, last, rows, flat, gray));
+         }
+         else
+         {
+            own = buf.duplicate(); // every task reads through its own view of the file.
+            line = new byte[lineBytes];
+            pels = gray != null ? new int[width] : null;
+
+            for (int row = first; row < last; row++)
+            {
+               if (rows != null)
+               {
+                  decodeRow(own, line, row, rows[row], 0);
+               }
+               else if (flat != null)
+               {
+                  decodeRow(own, line, row, flat, row * width);
+               }
+               else
+               {
+                  decodeRow(own, line, row, pels, 0);
+                  toGray(pels, width, gray, row * width);
+               }
+            } // for (int row = first; row < last; row++)
+         } // else
+      } // protected void compute()
+   } // private class Band extends RecursiveAction
+
+/*
+ * reads the BITMAPFILEHEADER and the BITMAPINFOHEADER and works out where the scan lines are. Header fields past the
+ * 40 bytes this decoder understands are skipped. Throws an IOException if the bit depth isn't supported or the file
+ * is too short for the image it describes.
+ */
+   public void readHeader(ByteBuffer buf) throws IOException
+   {
+      long end;
+
+      buf.order(ByteOrder.LITTLE_ENDIAN);
+
+      if (buf.limit() < FILEHEADERSIZE + INFOHEADERSIZE)
+      {
+         throw new IOException("file too short for a BMP header");
+      }
+
+      bfType = ((buf.get(0) & 0xFF) << 8) | (buf.get(1) & 0xFF); // big endian since it should be the letters BM.
+      bfSize = buf.getInt(2);
+      bfOffBits = buf.getInt(10);
+
+      biSize = buf.getInt(14);
+      width = buf.getInt(18);
+      height = buf.getInt(22);
+      bitCount = buf.getShort(28) & 0xFFFF;
+      biCompression = buf.getInt(30);
+      biClrUsed = buf.getInt(46);
+
+      if (height < 0) // a negative height means the image is stored top down.
+      {
+         topDown = true;
+         height = -height;
+      }
+
+      switch (bitCount) // number of colors in the default color table.
+      {
+         case 1:
+            numberOfColors = 2;
+            break;
+         case 2:
+            numberOfColors = 4;
+            break;
+         case 4:
+            numberOfColors = 16;
+            break;
+         case 8:
+            numberOfColors = 256;
+            break;
+         case 16:
+         case 24:
+         case 32:
+            numberOfColors = 0;
+            break;
+         default:
+            throw new IOException("unsupported bits per pel: " + bitCount);
+      } // switch (bitCount)
+
+      if (biClrUsed > 0) // the number of colors actually used, if given.
+      {
+         numberOfColors = Math.min(biClrUsed, MAXCOLORS);
+      }
+
+      pelStart = FILEHEADERSIZE + biSize + numberOfColors * 4;
+      lineBytes = (int) (((long) width * bitCount + 7) / 8);
+      stride = (lineBytes + ROWALIGN - 1) / ROWALIGN * ROWALIGN;
+
+      end = pelStart + (long) stride * (height - 1) + lineBytes; // the padding of the last scan line may be missing.
+      if (width <= 0 || height == 0 || end > buf.limit())
+      {
+         throw new IOException("file too short for a " + width + "x" + height + " image of " + bitCount + " bits per pel");
+      }
+   } // public void readHeader(ByteBuffer buf) throws IOException
+
+/*
+ * reads the color table (there is none for true color images).
+ */
+   public void readColorTable(ByteBuffer buf)
+   {
+      int index = FILEHEADERSIZE + biSize;
+
+      for (int color = 0; color < numberOfColors; color++, index += 4) // blue, green, red, reserved.
+      {
+         colorPallet[color] = ((buf.get(index + 2) & 0xFF) << 16) | ((buf.get(index + 1) & 0xFF) << 8) | (buf.get(index) & 0xFF);
+      }
+
+      if (bitCount < 8) buildPackedPels();
+   } // public void readColorTable(ByteBuffer buf)
+
+/*
+ * builds packedPels from the color table for a 1, 2 or 4 bit image: entry byte * pelsPerByte + k is the color of pel k of a
+ * scan line byte of value byte (pel 0 in the most significant bits), so a whole byte decodes with one table lookup.
+ */
+   public void buildPackedPels()
+   {
+      int pelsPerByte = 8 / bitCount;
+      int mask = (1 << bitCount) - 1;
+
+      packedPels = new int[256 * pelsPerByte];
+
+      for (int b = 0; b < 256; b++)
+      {
+         for (int k = 0; k < pelsPerByte; k++)
+         {
+            packedPels[b * pelsPerByte + k] = colorPallet[(b >> ((pelsPerByte - 1 - k) * bitCount)) & mask];
+         }
+      }
+   } // public void buildPackedPels()
+
+/*
+ * decodes the given image row (0 at the top) into dst starting at dstOffset. line holds the bytes of the scan line
+ * while it is decoded (at least lineBytes long).
+ */
+   public void decodeRow(ByteBuffer buf, byte[] line, int row, int[] dst, int dstOffset)
+   {
+      buf.get(pelStart + fileRow(row) * stride, line, 0, lineBytes); // the whole scan line in one bulk get.
+
+      switch (bitCount)
+      {
+         case 1:
+         case 2:
+         case 4:
+            decodePacked(line, dst, dstOffset);
+            break;
+         case 8:
+            decode8(line, dst, dstOffset);
+            break;
+         case 16:
+            decode16(line, dst, dstOffset);
+            break;
+         case 24:
+            decode24(line, dst, dstOffset);
+            break;
+         default: // 32, readHeader rejects everything else.
+            decode32(line, dst, dstOffset);
+      } // switch (bitCount)
+   } // public void decodeRow(ByteBuffer buf, byte[] line, int row, int[] dst, int dstOffset)
+
+/*
+ * decodes the columns from firstCol up to, but not including, endCol of the given image row (0 at the top) into dst starting
+ * at dstOffset. Only the bytes of the scan line that hold those columns are read, into the start of line. Packed pels
+ * (1, 2 and 4 bits) can start part way into a byte, so they are decoded one at a time from their bit position.
+ */
+   public void decodeColumns(ByteBuffer buf, byte[] line, int row, int firstCol, int endCol, int[] dst, int dstOffset)
+   {
+      int firstByte = firstCol * bitCount / 8;
+      int endByte = (endCol * bitCount + 7) / 8;
+      int count = endCol - firstCol;
+      int pelsPerByte = 8 / bitCount; // for packed pels.
+      int bit;
+
+      buf.get(pelStart + fileRow(row) * stride + firstByte, line, 0, endByte - firstByte);
+
+      switch (bitCount)
+      {
+         case 1:
+         case 2:
+         case 4:
+            for (int j = 0; j < count; j++)
+            {
+               bit = (firstCol + j) * bitCount - firstByte * 8; // bit of the pel in line, counted from the top of line[0].
+               dst[dstOffset + j] = packedPels[(line[bit >> 3] & 0xFF) * pelsPerByte + (bit & 7) / bitCount];
+            }
+            break;
+         case 8:
+            decode8(line, dst, dstOffset, count);
+            break;
+         case 16:
+            decode16(line, dst, dstOffset, count);
+            break;
+         case 24:
+            decode24(line, dst, dstOffset, count);
+            break;
+         default: // 32, readHeader rejects everything else.
+            decode32(line, dst, dstOffset, count);
+      } // switch (bitCount)
+   } // public void decodeColumns(ByteBuffer buf, byte[] line, int row, int firstCol, int endCol, int[] dst, int dstOffset)
+
+/*
+ * decodes a scan line of 1, 2 or 4 bit palette pels, the leftmost pel in the most significant bits of each byte.
+ * Every byte is looked up once in packedPels, which holds its pels already resolved through the color table, and its pels
+ * are copied out with the copies written out (faster than System.arraycopy for so few pels); the last, partly used byte
+ * copies only the pels the row has left.
+ */
+   public void decodePacked(byte[] line, int[] dst, int dstOffset)
+   {
+      int pelsPerByte = 8 / bitCount;
+      int fullBytes = width / pelsPerByte;
+      int[] table = packedPels;
+      int d = dstOffset;
+      int t;
+
+      switch (bitCount)
+      {
+         case 1:
+            for (int j = 0; j < fullBytes; j++, d += 8)
+            {
+               t = (line[j] & 0xFF) << 3;
+               dst[d]     = table[t];
+               dst[d + 1] = table[t + 1];
+               dst[d + 2] = table[t + 2];
+               dst[d + 3] = table[t + 3];
+               dst[d + 4] = table[t + 4];
+               dst[d + 5] = table[t + 5];
+               dst[d + 6] = table[t + 6];
+               dst[d + 7] = table[t + 7];
+            }
+            break;
+         case 2:
+            for (int j = 0; j < fullBytes; j++, d += 4)
+            {
+               t = (line[j] & 0xFF) << 2;
+               dst[d]     = table[t];
+               dst[d + 1] = table[t + 1];
+               dst[d + 2] = table[t + 2];
+               dst[d + 3] = table[t + 3];
+            }
+            break;
+         default: // 4
+            for (int j = 0; j < fullBytes; j++, d += 2)
+            {
+               t = (line[j] & 0xFF) << 1;
+               dst[d]     = table[t];
+               dst[d + 1] = table[t + 1];
+            }
+      } // switch (bitCount)
+
+      if (d < dstOffset + width) // the pels of the last byte for widths that aren't a multiple of pelsPerByte.
+      {
+         System.arraycopy(table, (line[fullBytes] & 0xFF) * pelsPerByte, dst, d, dstOffset + width - d);
+      }
+   } // public void decodePacked(byte[] line, int[] dst, int dstOffset)
+
+/*
+ * decodes a scan line of 8 bit palette pels.
+ */
+   public void decode8(byte[] line, int[] dst, int dstOffset)
+   {
+      decode8(line, dst, dstOffset, width);
+   }
+
+/*
+ * decodes the first count 8 bit palette pels of line.
+ */
+   public void decode8(byte[] line, int[] dst, int dstOffset, int count)
+   {
+      for (int j = 0; j < count; j++)
+      {
+         dst[dstOffset + j] = colorPallet[line[j] & 0xFF];
+      }
+   }
+
+/*
+ * decodes a scan line of 16 bit pels, 5 bits per color, kept the way BMP2OneByte reads them (not scaled to 8 bits).
+ */
+   public void decode16(byte[] line, int[] dst, int dstOffset)
+   {
+      decode16(line, dst, dstOffset, width);
+   }
+
+/*
+ * decodes the first count 16 bit pels of line.
+ */
+   public void decode16(byte[] line, int[] dst, int dstOffset, int count)
+   {
+      int pel;
+
+      for (int j = 0, s = 0; j < count; j++, s += 2)
+      {
+         pel = (line[s] & 0xFF) | ((line[s + 1] & 0xFF) << 8);
+         dst[dstOffset + j] = (((pel >> 10) & 0x1F) << 16) | (((pel >> 5) & 0x1F) << 8) | (pel & 0x1F);
+      }
+   }
+
+/*
+ * decodes a scan line of 24 bit pels (blue, green, red).
+ */
+   public void decode24(byte[] line, int[] dst, int dstOffset)
+   {
+      decode24(line, dst, dstOffset, width);
+   }
+
+/*
+ * decodes the first count 24 bit pels of line.
+ */
+   public void decode24(byte[] line, int[] dst, int dstOffset, int count)
+   {
+      for (int j = 0, s = 0; j < count; j++, s += 3)
+      {
+         dst[dstOffset + j] = ((line[s + 2] & 0xFF) << 16) | ((line[s + 1] & 0xFF) << 8) | (line[s] & 0xFF);
+      }
+   }
+
+/*
+ * decodes a scan line of 32 bit pels (blue, green, red, reserved), keeping the reserved byte on top like BMP2OneByte.
+ */
+   public void decode32(byte[] line, int[] dst, int dstOffset)
+   {
+      decode32(line, dst, dstOffset, width);
+   }
+
+/*
+ * decodes the first count 32 bit pels of line.
+ */
+   public void decode32(byte[] line, int[] dst, int dstOffset, int count)
+   {
+      for (int j = 0, s = 0; j < count; j++, s += 4)
+      {
+         dst[dstOffset + j] = ((line[s + 3] & 0xFF) << 24) | ((line[s + 2] & 0xFF) << 16) | ((line[s + 1] & 0xFF) << 8) | (line[s] & 0xFF);
+      }
+   }
+
+/*
+ * stores the gray levels of the first count pels into dst starting at dstOffset.
+ */
+   public static void toGray(int[] pels, int count, byte[] dst, int dstOffset)
+   {
+      for (int j = 0; j < count; j++)
+      {
+         dst[dstOffset + j] = (byte) gray(pels[j]);
+      }
+   }
+
+/*
+ * returns the gray level (0 to 255) of the given pel, the one PelArray.grayScalePel puts in each of its colors
+ * (looked up in the gray scale tables of PelArray.grayLevel).
+ */
+   public static int gray(int pel)
+   {
+      return PelArray.grayLevel(pel);
+   }
+
+/*
+ * returns the scan line of the file (0 is the first one stored) that holds the given image row (0 at the top).
+ */
+   public int fileRow(int row)
+   {
+      return topDown ? row : height - 1 - row;
+   }
+} // public class BMPDecoder
@@ -5,6 +5,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileReader;
+import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
 
 /*
@@ -33,6 +35,15 @@ import java.util.Arrays;
  *    double must be a parsable number (can be either int or double value)
  *    intarr must be one contiguous token separated by dashes (like 5-6-7-8).
  *
+ * Batch syntax (expands one script into several compiled configurations):
+ *    int and double arguments may be written as an inclusive range start:end:step (like 0.1:0.5:0.1),
+ *       the step may be left out for ints (like 2:5 is 2, 3, 4, 5).
+ *    any argument may be written as a comma separated list in braces (like {sigmoid,tangent}).
+ *    every element of an intarr may be a range or a list (like 10000-{50,100,200}-25).
+ *    The compiler writes one configuration for every combination of the values (filename_1.bin, filename_2.bin, ...)
+ *    and lists the configurations in filename.batch, which the network driver runs in parallel.
+ *    A script without ranges or lists compiles into filename.bin like before.
+ *
  * Bytecode format/interpreting (for implementing interpreter):
  *    Strings are prefixed by their length and are written as a series of chars in binary.
  *    ints and doubles are written normally.
@@ -68,6 +79,7 @@ import java.util.Arrays;
  *    public static void main(String[] args)
  *    public int compile(String filename)
  *    public int compileCode(String code)
+ *    public String[] expandArg(String arg, String type)
  *    public String parseLine(String s, boolean first)
  *    public int higherCommand(String cmd)
  *    public int lowerCommand(String cmd, int higher)
@@ -80,9 +92,13 @@ import java.util.Arrays;
 public class CodeCompiler
 {
    public static final String COMMANDFILE = "Commands.txt"; // Command file.
+   public static final String BATCHEXT = ".batch";          // extension of the list of configurations a batch script compiles into.
+   public static final int MAXBATCH = 1024;                 // maximum number of configurations one script may expand into.
+   public static final double RANGETOLERANCE = 1E-9;        // lets a double range reach its end despite rounding in the step.
 
    public String compileOutput; // Output string of the compiler (warnings, errors).
    public byte[] byteCode;      // stores the given bytecode as a byte array.
+   public byte[][] batchCode;   // bytecode of every configuration the code expanded into (batchCode[0] is byteCode).
    public String[] commands;
    public String[][] commandargs; // stores command argument types (int, string, double)
    public final String CMDFILE;   // stores command file (sometimes we want to pass command file from command line).
@@ -237,10 +253,31 @@ public class CodeCompiler
             exit = compileCode(code); // compile the code (string form) into binary array byteCode.
             try
             {
-               out = new DataOutputStream(new FileOutputStream(outputfile));
-               out.write(byteCode); // write compiled code to the file.
-               out.close();
-            }
+               if (batchCode.length == 1) // a script without ranges or lists compiles into a single file.
+               {
+                  out = new DataOutputStream(new FileOutputStream(outputfile));
+                  out.write(byteCode); // write compiled code to the file.
+                  out.close();
+               }
+               else // otherwise write every configuration to its own file and list them in the batch file.
+               {
+                  PrintWriter batch = new PrintWriter(filen[0] + BATCHEXT);
+
+                  for (int config = 0; config < batchCode.length; config++)
+                  {
+                     outputfile = filen[0] + "_" + (config + 1) + ".bin"; // configurations are numbered from 1.
+
+                     out = new DataOutputStream(new FileOutputStream(outputfile));
+                     out.write(batchCode[config]);
+                     out.close();
+
+                     batch.println(outputfile);
+                  }
+                  batch.close();
+
+                  printcline("Code expanded into " + batchCode.length + " configurations, listed in " + filen[0] + BATCHEXT);
+               } // else
+            } // try
             catch (IOException e)
             {
                printcline("Error in output file creation or output writing. ");
@@ -264,6 +301,7 @@ public class CodeCompiler
 
 /*
  * Compiles the given string using according to the command file. .
+ * Every combination of the values of range and list arguments is compiled into its own configuration (see batchCode).
  * Returns an exit code depending on compilation results (0 is successful, 1 is compilation error).
  */
    public int compileCode(String code)
@@ -271,8 +309,17 @@ public class CodeCompiler
       int exit = 0;
       if (cp)
       {
-         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-         DataOutputStream ds = new DataOutputStream(bytes);
+         ArrayList<ByteArrayOutputStream> configs = new ArrayList<ByteArrayOutputStream>(); // bytecode of each configuration so far.
+         ArrayList<ByteArrayOutputStream> expanded;                                         // configurations after expanding a line.
+         ByteArrayOutputStream bytes;
+         DataOutputStream ds;
+         String[][] values;  // every value of each argument on the current line.
+         int[] choice;       // index of the value used for each argument in the current combination.
+         int numCombos;      // number of combinations of the argument values on the current line.
+         int rest;           // part of the combination number left to decode into argument values.
+         boolean argsMatch;  // indicates that the number of arguments on the current line matches the command file.
+
+         configs.add(new ByteArrayOutputStream()); // every script has at least one configuration.
 
          int numLines;
          String[] sections = removeEmpty(code.split("\\["));
@@ -300,7 +347,10 @@ public class CodeCompiler
 
             try
             {
-               ds.writeInt(curSection); // indicate a section has started by prefixing each section with a section command.
+               for (ByteArrayOutputStream config : configs)
+               {
+                  new DataOutputStream(config).writeInt(curSection); // indicate a section has started by prefixing each section with a section command.
+               }
             }
             catch (IOException e)
             {
@@ -329,66 +379,194 @@ public class CodeCompiler
 
                numExp = expr.length;
 
-               try
-               {
-                  ds.writeInt(curCommand); // write current command to the compiled bytecode.
-               }
-               catch (IOException e)
-               {
-                  printcline("You broke the compiler"); // this shouldn't be called because we are writing to a bytearray
-               }
-
 /*
  * check if number of arguments matches expected number (subtract 1 on length of the expression to exclude the first command
  * (to single out number of args))
  * subtract 1 from curCommand because curCommand is 1-based indexing whereas commandargs is 0-based.
+ * A command with the wrong number of arguments is still written (without its arguments), like before.
  */
-               if (commandargs[curCommand-1].length != expr.length-1)
-               {
-                  continue;
-               }
+               argsMatch = commandargs[curCommand-1].length == numExp-1;
+               values = new String[argsMatch ? numExp-1 : 0][];
+               numCombos = 1;
 
-               for (int exp = 1; exp < numExp; exp++) // start from second token (index 1) because first token is command (we ignore that)
+               if (argsMatch)
                {
-                  try
-                  {
-                     writeArg(ds, expr[exp], curCommand, exp); // write the current argument of the current command to the compiled code.
-                  }
-                  catch (IOException e)
+                  for (int exp = 1; exp < numExp; exp++) // start from second token (index 1) because first token is command
                   {
-                     printcline("this shouldn't be happening. You broke the compiler");
+                     values[exp-1] = expandArg(expr[exp], commandargs[curCommand-1][exp-1]);
+                     numCombos *= values[exp-1].length;
                   }
-               } // for (int exp = 1; exp < numExp; exp++)
+               }
 
-               try // sections are opened and closed by a section flag.
+               if (configs.size() * numCombos > MAXBATCH) // refuse to expand past the batch limit, keep the first value of each argument.
                {
-                  ds.writeInt(curSection);
+                  printcline("too many configurations on line " + line + " (limit is " + MAXBATCH + "), only using the first value of each argument");
+                  exit = 1;
+                  numCombos = 1;
                }
-               catch (IOException e)
+
+               expanded = new ArrayList<ByteArrayOutputStream>();
+               choice = new int[values.length];
+
+               for (ByteArrayOutputStream config : configs)
                {
-                  printcline("You broke the compiler"); // this shouldn't IOException because we are writing to a bytearray output stream
-               }
+                  for (int combo = 0; combo < numCombos; combo++)
+                  {
+                     bytes = config;
+                     if (combo < numCombos-1) // every combination but the last writes to a copy of the configuration.
+                     {
+                        bytes = new ByteArrayOutputStream();
+                        bytes.write(config.toByteArray(), 0, config.size());
+                     }
+                     ds = new DataOutputStream(bytes);
+
+                     rest = combo;
+                     for (int arg = values.length-1; arg >= 0; arg--) // decode the combination number into one value per argument.
+                     {
+                        choice[arg] = rest % values[arg].length;
+                        rest /= values[arg].length;
+                     }
+
+                     try
+                     {
+                        ds.writeInt(curCommand); // write current command to the compiled bytecode.
+
+                        for (int arg = 0; arg < values.length; arg++)
+                        {
+                           writeArg(ds, values[arg][choice[arg]], curCommand, arg+1); // write the current argument of the current command.
+                        }
+
+                        if (argsMatch) // sections are opened and closed by a section flag.
+                        {
+                           ds.writeInt(curSection);
+                        }
+                     } // try
+                     catch (IOException e)
+                     {
+                        printcline("this shouldn't be happening. You broke the compiler");
+                     }
+
+                     expanded.add(bytes);
+                  } // for (int combo = 0; combo < numCombos; combo++)
+               } // for (ByteArrayOutputStream config : configs)
+
+               configs = expanded;
 
             } // for (int linesec = 1; linesec < numLines; linesec++)
 
             line++; // increment line number for error reporting.
          } // for (int section = 0; section < numsec; section++)
 
-         try
-         {
-            ds.writeInt(0); // ending command, signal to interpreter that the program has ended.
-         }
-         catch (IOException e)
+         batchCode = new byte[configs.size()][];
+
+         for (int config = 0; config < configs.size(); config++)
          {
-            printcline("this should not be happening, contact developer with compile output and code");
+            try
+            {
+               new DataOutputStream(configs.get(config)).writeInt(0); // ending command, signal to interpreter that the program has ended.
+            }
+            catch (IOException e)
+            {
+               printcline("this should not be happening, contact developer with compile output and code");
+            }
+
+            batchCode[config] = configs.get(config).toByteArray();
          }
 
-         byteCode = bytes.toByteArray();
+         byteCode = batchCode[0];
       } // if (cp)
 
       return exit; // return exit code, indicating how the code exited.
    } // public int compileCode(String code)
 
+/*
+ * returns every value the given argument of the given data type stands for.
+ * ranges (start:end:step, inclusive) are allowed for ints and doubles, lists ({a,b,c}) for any type, and each element
+ * of an intarr may itself be a range or list. A plain argument is returned as the only value.
+ * values that aren't numbers are returned as is so writeArg reports the data type mismatch.
+ */
+   public String[] expandArg(String arg, String type)
+   {
+      ArrayList<String> ret = new ArrayList<String>();
+      String[] bounds;
+
+      try
+      {
+         if (arg.startsWith("{") && arg.endsWith("}")) // list of values.
+         {
+            for (String value : removeEmpty(arg.substring(1, arg.length()-1).split(",")))
+            {
+               ret.addAll(Arrays.asList(expandArg(value, type)));
+            }
+         }
+         else if (type.equals("intarr") && (arg.contains("{") || arg.contains(":")))
+         {
+            String[] elements = removeEmpty(arg.split("-"));
+            ret.add("");
+
+            for (String element : elements) // build every combination of the element values, joined by dashes.
+            {
+               ArrayList<String> next = new ArrayList<String>();
+               String[] elementValues = expandArg(element, "int");
+
+               for (String prefix : ret)
+               {
+                  for (String value : elementValues)
+                  {
+                     next.add(prefix.length() == 0 ? value : prefix + "-" + value);
+                  }
+               }
+               ret = next;
+            } // for (String element : elements)
+         } // else if (type.equals("intarr") && ...
+         else if ((type.equals("int") || type.equals("double")) && arg.contains(":")) // inclusive range.
+         {
+            bounds = arg.split(":");
+
+            if (type.equals("int"))
+            {
+               int start = Integer.parseInt(bounds[0]);
+               int end = Integer.parseInt(bounds[1]);
+               int step = bounds.length > 2 ? Integer.parseInt(bounds[2]) : 1;
+
+               for (int value = start; step > 0 && value <= end && ret.size() < MAXBATCH; value += step)
+               {
+                  ret.add(Integer.toString(value));
+               }
+            }
+            else
+            {
+               double start = Double.parseDouble(bounds[0]);
+               double end = Double.parseDouble(bounds[1]);
+               double step = Double.parseDouble(bounds[2]);
+
+               for (int index = 0; step > 0.0 && start + index * step <= end + RANGETOLERANCE && ret.size() < MAXBATCH; index++)
+               {
+                  ret.add(Double.toString(start + index * step)); // start + index * step keeps rounding errors from adding up.
+               }
+            }
+
+            if (ret.size() == 0)
+            {
+               printcline("empty range " + arg + " on line " + line);
+               ret.add(bounds[0]);
+            }
+         } // else if ((type.equals("int") || type.equals("double")) && arg.contains(":"))
+         else
+         {
+            ret.add(arg);
+         }
+      } // try
+      catch (NumberFormatException | ArrayIndexOutOfBoundsException e)
+      {
+         printcline("invalid range " + arg + " on line " + line);
+         ret.clear();
+         ret.add(arg);
+      }
+
+      return ret.toArray(new String[0]);
+   } // public String[] expandArg(String arg, String type)
+
 /*
  * parses the given line (String) into just the expression (ignoring comments).
  * the parameter first just means if the line is the first line in a section (the one in brackets).
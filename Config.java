@@ -54,6 +54,17 @@ public class Config
    public String inputs;         // File for the inputs of the network.
    public String outputs;        // File for the expected outputs of network.
    public String actfunct;       // activation function name (lowercase)
+   public int starts = 1;        // number of differently initialized networks to train in parallel (default of one network).
+   public int warmup;            // iterations every start trains for before the worst starts are culled.
+   public int survivors = 1;     // number of starts that keep training after the warm-up (default of one).
+   public int seed;              // seed of the random weight population.
+   public int publishTime;       // every how many iterations to publish a snapshot of the weights (default of never).
+   public int servePort;         // port to serve predictions on while training (default of not serving).
+   public String valInputs;      // File for the validation inputs.
+   public String valOutputs;     // File for the validation expected outputs.
+   public int valCases;          // number of cases in the validation truth table.
+   public int valTime;           // every how many iterations to validate.
+   public int patience;          // validations without improvement before training stops early.
    public InputValidation valid; // stores input validation booleans (1 for each configuration parameter indicating it has been defined)
 
 
@@ -247,6 +258,68 @@ public class Config
                case 26:
                   savediff = inp.readInt() == 1;
                   break;
+               case 27: // dummy command for multi-start section.
+                  curCommand = command;
+                  break;
+               case 28: // command to set the number of starts.
+                  starts = inp.readInt();
+                  break;
+               case 29: // command to set the warm-up iterations of each start.
+                  warmup = inp.readInt();
+                  break;
+               case 30: // command to set the number of starts kept after the warm-up.
+                  survivors = inp.readInt();
+                  break;
+               case 31: // dummy command for random population section.
+                  curCommand = command;
+                  break;
+               case 32: // command to set the seed of the random weight population.
+                  seed = inp.readInt();
+                  valid.seedDefined = true;
+                  break;
+               case 33: // dummy command for serving section.
+                  curCommand = command;
+                  break;
+               case 34: // command to set the publish interval of weight snapshots.
+                  publishTime = inp.readInt();
+                  break;
+               case 35: // command to set the port to serve on while training.
+                  servePort = inp.readInt();
+                  break;
+               case 36: // dummy command for validation section.
+                  curCommand = command;
+                  break;
+               case 37: // indicates validation inputs file.
+                  stringLength = inp.readInt(); // length of the validation inputs file name.
+
+                  valInputs = "";
+                  for (int index = 0; index < stringLength; index++)
+                  {
+                     valInputs+=inp.readChar();
+                  }
+
+                  valid.valInputsDefined = true;
+                  break;
+               case 38: // indicates validation outputs file.
+                  stringLength = inp.readInt(); // length of the validation outputs file name.
+
+                  valOutputs = "";
+                  for (int index = 0; index < stringLength; index++)
+                  {
+                     valOutputs+=inp.readChar();
+                  }
+
+                  valid.valOutputsDefined = true;
+                  break;
+               case 39: // command to set the number of validation cases.
+                  valCases = inp.readInt();
+                  break;
+               case 40: // command to set the validation interval.
+                  valTime = inp.readInt();
+                  break;
+               case 41: // command to set the patience of early stopping.
+                  patience = inp.readInt();
+                  break;
             } //switch (command)
          } // try
          catch (IOException e)
@@ -1,4 +1,7 @@
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 /*
  * Author: Luke Zeng
@@ -18,6 +21,8 @@ import java.io.*;
 
 public class FileHandler
 {
+   public static final String TEMPEXT = ".tmp"; // extension of the temporary file weights are written to before replacing the weights file.
+
    public String network;        // network weights file name
    public DataInputStream ninp;  // file reader
    public DataOutputStream nout; // file writer (output)
@@ -67,12 +72,15 @@ public class FileHandler
 /*
  * Writes the network weights to the file.
  * Requires the input of the network configuration
+ * The weights are written to a temporary file which then replaces the weights file in one (atomic) move,
+ * so anything reading the weights file (like the ModelRegistry) sees either the old or the new weights, never a mix.
  */
    public void writeWeights(double[][][] w, int[] numNodes, int numLayers)
    {
       try
       {
-         File f = new File(network);
+         File target = new File(network);
+         File f = new File(network + TEMPEXT);
          f.createNewFile();
          nout = new DataOutputStream(new FileOutputStream(f)); // helps with writing to file.
 
@@ -92,6 +100,15 @@ public class FileHandler
 
          nout.write(bo.toByteArray());
          nout.close();
+
+         try
+         {
+            Files.move(f.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         }
+         catch (AtomicMoveNotSupportedException e) // some file systems can't replace atomically, replace it anyway.
+         {
+            Files.move(f.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+         }
       } // try
       catch (IOException e)
       {
@@ -110,9 +127,12 @@ public class FileHandler
  */
    public boolean loadWeights(double[][][] w, int[] numNodes, int numLayers) throws IOException
    {
-      ninp = new DataInputStream((new FileInputStream(network))); // helps with inputting from file.
       byte[] b = new byte[sumw(numNodes)*8];
-      ninp.read(b);
+
+      try (DataInputStream file = new DataInputStream(new FileInputStream(network))) // closed right away, so the file can be replaced.
+      {
+         file.read(b);
+      }
       ninp = new DataInputStream(new ByteArrayInputStream(b));
 
       boolean tooshort = false; // flag to indicate the file is too short.
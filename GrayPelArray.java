@@ -0,0 +1,409 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Author: Luke Zeng
+ * Date of Creation: 10/19/2026
+ *
+ * Description: A gray scale image of one byte per pel (gray level 0 to 255, row by row, (0,0) in the upper left corner),
+ *              for the work PelArray does on images that are already gray. A gray scale PelArray stores every gray level
+ *              three times in an int (0x00LLLLLL); this stores it once in a byte, a quarter of the memory, and can be
+ *              decoded straight from a BMP file without the int pels ever existing (BMPDecoder.readGray).
+ *
+ *              Each operation gives the gray levels the PelArray operation of the same name gives on the gray scale
+ *              PelArray, including the center of mass: it weighs every pel by its PelArray value (level * 0x010101)
+ *              and sums in the same order, so the rounding is the same too. Like PelArray, every operation returns a new
+ *              GrayPelArray. Limits and forced values of forceMin and forceMax are gray levels. The operations that change each
+ *              level on its own (ones compliment, forceMin, forceMax) fill in a 256 entry table of what every level becomes and
+ *              then look each pel up in it (mapLevels).
+ *
+ * Table of Contents:
+ *    public GrayPelArray(byte[] pels, int width, int height)
+ *    public static GrayPelArray read(String filename) throws IOException
+ *    public static GrayPelArray fromPelArray(PelArray p)
+ *    public PelArray toPelArray()
+ *    public byte[] getPels()
+ *    public int getWidth()
+ *    public int getHeight()
+ *    public int getLevel(int row, int col)
+ *    public boolean calcCOM()
+ *    public int getXcom()
+ *    public int getYcom()
+ *    public GrayPelArray onesComplimentImage()
+ *    public GrayPelArray flipHorizontal()
+ *    public GrayPelArray flipVertical()
+ *    public GrayPelArray crop(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+ *    public GrayPelArray scale(int newColumnWidth, int newRowHeight)
+ *    private GrayPelArray boxScale(int newColumnWidth, int newRowHeight)
+ *    public GrayPelArray forceMin(int limit, int forced)
+ *    public GrayPelArray forceMax(int limit, int forced)
+ *    public GrayPelArray mapLevels(byte[] table)
+ */
+
+public class GrayPelArray
+{
+   public static final int REPLICATE = 0x010101; // PelArray value of gray level 1 (the level in each of the three colors).
+
+   private final byte[] pels; // gray levels, row by row.
+   private final int width;
+   private final int height;
+
+   private boolean comKnownFlag; // true once the center of mass is calculated.
+   private int xComColumnVal;    // x (column) center of mass value.
+   private int yComRowVal;       // y (row) center of mass value.
+
+/*
+ * Creates a gray scale image of the given size from the given gray levels (width * height of them, row by row), without copying them.
+ */
+   public GrayPelArray(byte[] pels, int width, int height)
+   {
+      if (pels.length != width * height)
+      {
+         throw new IllegalArgumentException(pels.length + " gray levels for a " + width + "x" + height + " image");
+      }
+
+      this.pels = pels;
+      this.width = width;
+      this.height = height;
+   } // public GrayPelArray(byte[] pels, int width, int height)
+
+/*
+ * returns the gray scale image of the given BMP file, decoded straight to gray levels.
+ */
+   public static GrayPelArray read(String filename) throws IOException
+   {
+      BMPDecoder decoder = new BMPDecoder();
+      byte[] gray = decoder.readGrayParallel(BMPDecoder.map(filename), ForkJoinPool.commonPool());
+
+      return new GrayPelArray(gray, decoder.width, decoder.height);
+   }
+
+/*
+ * returns the gray scale image of the given PelArray, which must already be gray scale (the blue byte of each pel is kept).
+ */
+   public static GrayPelArray fromPelArray(PelArray p)
+   {
+      int w = p.getWidth();
+      int h = p.getHeight();
+      byte[] gray = new byte[w * h];
+
+      for (int iRow = 0; iRow < h; iRow++)
+      {
+         for (int iCol = 0; iCol < w; iCol++)
+         {
+            gray[iRow * w + iCol] = (byte) p.arrayOfPels[iRow][iCol];
+         }
+      }
+
+      return new GrayPelArray(gray, w, h);
+   } // public static GrayPelArray fromPelArray(PelArray p)
+
+/*
+ * returns this image as a gray scale PelArray (0x00LLLLLL pels).
+ */
+   public PelArray toPelArray()
+   {
+      int[][] targetArray = new int[height][width];
+
+      for (int iRow = 0; iRow < height; iRow++)
+      {
+         for (int iCol = 0; iCol < width; iCol++)
+         {
+            targetArray[iRow][iCol] = (pels[iRow * width + iCol] & 0xFF) * REPLICATE;
+         }
+      }
+
+      return new PelArray(targetArray);
+   } // public PelArray toPelArray()
+
+/*
+ * returns the gray levels, row by row (not a copy).
+ */
+   public byte[] getPels()
+   {
+      return pels;
+   }
+
+   public int getWidth()
+   {
+      return width;
+   }
+
+   public int getHeight()
+   {
+      return height;
+   }
+
+/*
+ * returns the gray level of the given pel.
+ */
+   public int getLevel(int row, int col)
+   {
+      return pels[row * width + col] & 0xFF;
+   }
+
+/*
+ * calculates the center of mass, the same way PelArray.calcCOM does on the gray scale PelArray (in the same blocks of rows,
+ * see PelArray.reduceRows).
+ */
+   public boolean calcCOM()
+   {
+      double[] sums = PelArray.reduceRows(height, width, 3, (firstRow, endRow, blockSums) ->
+      {
+         double colCom = 0.0, rowCom = 0.0, mass = 0.0;
+         double value;
+         int index = firstRow * width;
+
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
+         {
+            for (int iCol = 0; iCol < width; ++iCol, ++index)
+            {
+               value = (double) ((pels[index] & 0xFF) * REPLICATE);
+               colCom += ((double) iCol) * value;
+               rowCom += ((double) iRow) * value;
+               mass += value;
+            }
+         }
+
+         blockSums[0] += colCom;
+         blockSums[1] += rowCom;
+         blockSums[2] += mass;
+      });
+      double fColCom = sums[0], fRowCom = sums[1], fMass = sums[2];
+
+      comKnownFlag = true;
+
+      if (fMass > 0.0)
+      {
+         xComColumnVal = (int) Math.round(fColCom / fMass);
+         yComRowVal = (int) Math.round(fRowCom / fMass);
+      }
+      else // all pels are zero, so use the center of the image.
+      {
+         xComColumnVal = width / 2;
+         yComRowVal = height / 2;
+      }
+
+      return comKnownFlag;
+   } // public boolean calcCOM()
+
+/*
+ * returns the x (column) value of the center of mass, calculating it first if needed.
+ */
+   public int getXcom()
+   {
+      if (!comKnownFlag) calcCOM();
+
+      return xComColumnVal;
+   }
+
+/*
+ * returns the y (row) value of the center of mass, calculating it first if needed.
+ */
+   public int getYcom()
+   {
+      if (!comKnownFlag) calcCOM();
+
+      return yComRowVal;
+   }
+
+/*
+ * returns the ones complement of the image (level becomes 255 - level).
+ */
+   public GrayPelArray onesComplimentImage()
+   {
+      byte[] table = new byte[256];
+
+      for (int level = 0; level < 256; level++)
+      {
+         table[level] = (byte) ~level;
+      }
+
+      return mapLevels(table);
+   }
+
+/*
+ * flips the image about the horizontal central line (top becomes bottom).
+ */
+   public GrayPelArray flipHorizontal()
+   {
+      byte[] target = new byte[pels.length];
+
+      for (int iRow = 0; iRow < height; iRow++)
+      {
+         System.arraycopy(pels, iRow * width, target, (height - 1 - iRow) * width, width);
+      }
+
+      return new GrayPelArray(target, width, height);
+   }
+
+/*
+ * flips the image about the vertical central line (left becomes right).
+ */
+   public GrayPelArray flipVertical()
+   {
+      byte[] target = new byte[pels.length];
+      int rowStart;
+
+      for (int iRow = 0; iRow < height; iRow++)
+      {
+         rowStart = iRow * width;
+
+         for (int iCol = 0; iCol < width; iCol++)
+         {
+            target[rowStart + width - 1 - iCol] = pels[rowStart + iCol];
+         }
+      }
+
+      return new GrayPelArray(target, width, height);
+   } // public GrayPelArray flipVertical()
+
+/*
+ * crops the image to the given frame (inclusive, x is columns and y is rows). Parts of the frame outside the image are 0.
+ */
+   public GrayPelArray crop(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+   {
+      int newWidth = xLowerRight - xUpperLeft + 1;
+      int newHeight = yLowerRight - yUpperLeft + 1;
+      byte[] target = new byte[newWidth * newHeight];
+      int firstCol = Math.max(xUpperLeft, 0);            // columns of the frame inside the image.
+      int lastCol = Math.min(xLowerRight, width - 1);
+
+      if (firstCol <= lastCol)
+      {
+         for (int iRow = Math.max(yUpperLeft, 0); iRow <= Math.min(yLowerRight, height - 1); iRow++)
+         {
+            System.arraycopy(pels, iRow * width + firstCol, target, (iRow - yUpperLeft) * newWidth + firstCol - xUpperLeft,
+                             lastCol - firstCol + 1);
+         }
+      }
+
+      return new GrayPelArray(target, newWidth, newHeight);
+   } // public GrayPelArray crop(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+
+/*
+ * scales the image to the given size like PelArray.scale: averaging the levels of each box of source pels (PelArray.boxScale)
+ * when the image gets smaller in both directions, otherwise taking each new pel from the nearest source pel.
+ */
+   public GrayPelArray scale(int newColumnWidth, int newRowHeight)
+   {
+      if (newColumnWidth <= width && newRowHeight <= height) return boxScale(newColumnWidth, newRowHeight);
+
+      byte[] target = new byte[newColumnWidth * newRowHeight];
+      double xColumnRatio = ((double) (width - 1)) / ((double) (newColumnWidth - 1));
+      double yRowRatio = ((double) (height - 1)) / ((double) (newRowHeight - 1));
+      int[] sourceCols = new int[newColumnWidth];
+      int sourceRow;
+
+      for (int iCol = 0; iCol < newColumnWidth; ++iCol)
+      {
+         sourceCols[iCol] = (int) Math.round(((double) iCol) * xColumnRatio);
+      }
+
+      for (int iRow = 0; iRow < newRowHeight; ++iRow)
+      {
+         sourceRow = (int) Math.round(((double) iRow) * yRowRatio);
+
+         for (int iCol = 0; iCol < newColumnWidth; ++iCol)
+         {
+            target[iRow * newColumnWidth + iCol] = pels[sourceRow * width + sourceCols[iCol]];
+         }
+      }
+
+      return new GrayPelArray(target, newColumnWidth, newRowHeight);
+   } // public GrayPelArray scale(int newColumnWidth, int newRowHeight)
+
+/*
+ * scales the image down to the given size, each new level the rounded average of its box of source levels (see PelArray.boxScale).
+ */
+   private GrayPelArray boxScale(int newColumnWidth, int newRowHeight)
+   {
+      byte[] target = new byte[newColumnWidth * newRowHeight];
+      int[] newCol = new int[width];          // new column of each source column.
+      int[] colsInBox = new int[newColumnWidth];
+      long[] sums = new long[newColumnWidth]; // level sums of the boxes of the current new row.
+      int rowStart;
+
+      for (int iNewCol = 0; iNewCol < newColumnWidth; ++iNewCol)
+      {
+         colsInBox[iNewCol] = PelArray.boxStart(iNewCol + 1, width, newColumnWidth) - PelArray.boxStart(iNewCol, width, newColumnWidth);
+
+         for (int iCol = PelArray.boxStart(iNewCol, width, newColumnWidth); iCol < PelArray.boxStart(iNewCol + 1, width, newColumnWidth); ++iCol)
+         {
+            newCol[iCol] = iNewCol;
+         }
+      }
+
+      for (int iNewRow = 0; iNewRow < newRowHeight; ++iNewRow)
+      {
+         int firstRow = PelArray.boxStart(iNewRow, height, newRowHeight);
+         int endRow = PelArray.boxStart(iNewRow + 1, height, newRowHeight);
+
+         Arrays.fill(sums, 0);
+
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
+         {
+            rowStart = iRow * width;
+
+            for (int iCol = 0; iCol < width; ++iCol)
+            {
+               sums[newCol[iCol]] += pels[rowStart + iCol] & 0xFF;
+            }
+         }
+
+         for (int iNewCol = 0; iNewCol < newColumnWidth; ++iNewCol)
+         {
+            target[iNewRow * newColumnWidth + iNewCol] = (byte) PelArray.boxAverage(sums[iNewCol], (endRow - firstRow) * colsInBox[iNewCol]);
+         }
+      } // for (int iNewRow = 0; iNewRow < newRowHeight; ++iNewRow)
+
+      return new GrayPelArray(target, newColumnWidth, newRowHeight);
+   } // private GrayPelArray boxScale(int newColumnWidth, int newRowHeight)
+
+/*
+ * sets every pel below the gray level limit to the gray level forced (removes noise in a black background).
+ */
+   public GrayPelArray forceMin(int limit, int forced)
+   {
+      byte[] table = new byte[256];
+
+      for (int level = 0; level < 256; level++)
+      {
+         table[level] = level < limit ? (byte) forced : (byte) level;
+      }
+
+      return mapLevels(table);
+   }
+
+/*
+ * sets every pel above the gray level limit to the gray level forced (removes noise in a white background).
+ */
+   public GrayPelArray forceMax(int limit, int forced)
+   {
+      byte[] table = new byte[256];
+
+      for (int level = 0; level < 256; level++)
+      {
+         table[level] = level > limit ? (byte) forced : (byte) level;
+      }
+
+      return mapLevels(table);
+   }
+
+/*
+ * returns the image with every gray level replaced by its entry in the given 256 entry table (so tables can be combined
+ * to do several per level operations in one pass).
+ */
+   public GrayPelArray mapLevels(byte[] table)
+   {
+      byte[] target = new byte[pels.length];
+
+      for (int i = 0; i < pels.length; i++)
+      {
+         target[i] = table[pels[i] & 0xFF];
+      }
+
+      return new GrayPelArray(target, width, height);
+   }
+} // public class GrayPelArray
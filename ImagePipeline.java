@@ -0,0 +1,344 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Author: Luke Zeng
+ * Date of Creation: 10/19/2026
+ *
+ * Description: Builds the training dataset from a directory of BMP images in one JVM, replacing ImgAll.cmd (BMP2OneByte),
+ *              IntArrAll.cmd (ToIntArray) and aggregatecommand.cmd (Aggregate). Every image is decoded (BMPDecoder),
+ *              preprocessed (ToIntArray) and reduced to one byte per pel on a thread pool, all in memory;
+ *              only the final dataset files of Aggregate are written, with the images in file name order.
+ *
+ *              For large batches the pipeline can stream instead: decoding, preprocessing and writing each run on their own
+ *              thread, connected by small bounded queues, so image N+1 is decoded while image N is preprocessed and image N-1
+ *              is written. A full queue blocks the stage feeding it, so no more than a few images are in memory at any time
+ *              no matter how many images there are, and the dataset is written image by image instead of all at the end.
+ *
+ *              The pels come straight from the decoder, so unlike the .bin round trip through ToIntArray.convertBin
+ *              (which reads the color bytes as signed bytes) no colors are sign extended. They are decoded as gray levels
+ *              (BMPDecoder.readGray) and preprocessed as a GrayPelArray (ToIntArray.preprocessGrayFused), one byte per pel
+ *              instead of the four of an int pel.
+ *
+ *              The method argument picks another preprocess variant (METHODS): graysteps runs the steps of
+ *              ToIntArray.preprocessGray one image at a time, bands streams every image in bands of rows
+ *              (ToIntArray.preprocessBands) and window decodes only about the crop window of every image
+ *              (ToIntArray.preprocessWindow), with a center of mass estimated at low resolution that can be off by a
+ *              few pels. bands and window read the BMP files themselves, so when streaming their
+ *              decode stage only passes the file names on.
+ *
+ * Usage: java ImagePipeline <bmp directory> [threads] [method]   processes the images on a thread pool.
+ *        java ImagePipeline <bmp directory> stream [method]    streams the images through the decode, preprocess and write stages.
+ *
+ * Table of Contents:
+ *    public static void main(String[] args)
+ *    public static List<byte[]> processAll(List<String> files, int threads, String method) throws IOException
+ *    public static void stream(List<String> files, String method) throws IOException
+ *    public static Void decodeStage(List<String> files, String method, BlockingQueue<Image> out) throws Exception
+ *    public static Void preprocessStage(BlockingQueue<Image> in, String method, BlockingQueue<Image> out) throws Exception
+ *    public static Void writeStage(BlockingQueue<Image> in) throws Exception
+ *    public static byte[] process(String file, String method) throws IOException
+ *    public static byte[] preprocess(Image image, String method) throws IOException
+ *    public static boolean decodesGray(String method)
+ *    public static List<String> listImages(String directory)
+ */
+
+public class ImagePipeline
+{
+   public static final String IMAGEEXT = ".bmp"; // extension of the images to process.
+   public static final String STREAM = "stream"; // second argument of main to stream the images.
+   public static final int QUEUESIZE = 2;        // images waiting between two stages when streaming.
+   public static final String[] METHODS = {"gray", "graysteps", "bands", "window"}; // preprocess methods, gray first.
+
+/*
+ * One image on its way through the streaming stages (the end of the images is marked with END).
+ */
+   public static class Image
+   {
+      final String file;
+      final GrayPelArray gray; // decoded gray levels (null once preprocessed, or if the method reads the file itself).
+      final byte[] bytes;      // preprocessed bytes (null until preprocessed).
+
+      Image(String file, GrayPelArray gray, byte[] bytes)
+      {
+         this.file = file;
+         this.gray = gray;
+         this.bytes = bytes;
+      }
+   } // public static class Image
+
+   private static final Image END = new Image(null, null, null); // follows the last image through every stage.
+
+/*
+ * processes every BMP image in the given directory and writes the dataset.
+ */
+   public static void main(String[] args)
+   {
+      List<String> files;
+      int threads;
+      boolean streaming;
+      String method;
+
+      method = args.length > 2 ? args[2] : METHODS[0];
+
+      if (args.length < 1)
+      {
+         System.out.println("Usage: java ImagePipeline <bmp directory> [threads|stream] [method]");
+      }
+      else if (!Arrays.asList(METHODS).contains(method))
+      {
+         System.out.println("method must be one of " + String.join(" ", METHODS));
+      }
+      else
+      {
+         try
+         {
+            files = listImages(args[0]);
+            streaming = args.length > 1 && args[1].equals(STREAM);
+
+            if (streaming)
+            {
+               System.out.println("PIPELINE: streaming " + files.size() + " images from " + args[0] + " (" + method + ")");
+
+               stream(files, method);
+            }
+            else
+            {
+               threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+               System.out.println("PIPELINE: processing " + files.size() + " images from " + args[0] + " on " + threads +
+                                  " threads (" + method + ")");
+
+               Aggregate.writeDataset(processAll(files, threads, method));
+            }
+         }
+         catch (NumberFormatException e)
+         {
+            System.out.println("threads must be a number");
+         }
+         catch (IOException e)
+         {
+            System.out.println("PIPELINE: " + e.getMessage());
+         }
+      } // else
+   } // public static void main(String[] args)
+
+/*
+ * processes the given images on the given number of threads and returns their bytes in the order of the files.
+ * Throws an IOException if any image can't be processed (a dataset with an image missing would be out of order).
+ */
+   public static List<byte[]> processAll(List<String> files, int threads, String method) throws IOException
+   {
+      ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.size())));
+      ArrayList<Future<byte[]>> pending = new ArrayList<Future<byte[]>>();
+      ArrayList<byte[]> ret = new ArrayList<byte[]>();
+
+      for (String file : files)
+      {
+         pending.add(pool.submit(() -> process(file, method)));
+      }
+
+      try
+      {
+         for (int image = 0; image < files.size(); image++)
+         {
+            ret.add(pending.get(image).get());
+            System.out.println("PIPELINE: processed " + files.get(image));
+         }
+      }
+      catch (InterruptedException | ExecutionException e)
+      {
+         throw new IOException("cannot process an image: " + e.getCause(), e);
+      }
+      finally
+      {
+         pool.shutdownNow();
+      }
+
+      return ret;
+   } // public static List<byte[]> processAll(List<String> files, int threads, String method) throws IOException
+
+/*
+ * streams the given images through the decode, preprocess and write stages (one thread each, bounded queues between them)
+ * and writes the dataset in the order of the files. If a stage fails, the other stages are stopped and an IOException
+ * is thrown (the dataset files are then incomplete).
+ */
+   public static void stream(List<String> files, String method) throws IOException
+   {
+      BlockingQueue<Image> decoded = new ArrayBlockingQueue<Image>(QUEUESIZE);      // decode stage to preprocess stage.
+      BlockingQueue<Image> preprocessed = new ArrayBlockingQueue<Image>(QUEUESIZE); // preprocess stage to write stage.
+      ExecutorService stages = Executors.newFixedThreadPool(3);
+      CompletionService<Void> done = new ExecutorCompletionService<Void>(stages);   // stages in the order they finish.
+      ArrayList<Callable<Void>> work = new ArrayList<Callable<Void>>();
+
+      work.add(() -> decodeStage(files, method, decoded));
+      work.add(() -> preprocessStage(decoded, method, preprocessed));
+      work.add(() -> writeStage(preprocessed));
+
+      for (Callable<Void> stage : work)
+      {
+         done.submit(stage);
+      }
+
+      try
+      {
+         for (int stage = 0; stage < work.size(); stage++)
+         {
+            done.take().get(); // the first stage to fail stops the others below.
+         }
+      }
+      catch (InterruptedException | ExecutionException e)
+      {
+         throw new IOException("streaming stopped: " + e.getCause(), e);
+      }
+      finally
+      {
+         stages.shutdownNow(); // interrupts stages blocked on a queue that will never move again.
+      }
+   } // public static void stream(List<String> files, String method) throws IOException
+
+/*
+ * decode stage: decodes every file in order (each one on all cores) and passes its gray levels on, then passes on END.
+ * For a method that reads the file itself (see decodesGray) only the file is passed on.
+ */
+   public static Void decodeStage(List<String> files, String method, BlockingQueue<Image> out) throws Exception
+   {
+      for (String file : files)
+      {
+         out.put(new Image(file, decodesGray(method) ? GrayPelArray.read(file) : null, null)); // waits while the preprocess stage is behind.
+      }
+
+      out.put(END);
+
+      return null;
+   } // public static Void decodeStage(List<String> files, String method, BlockingQueue<Image> out) throws Exception
+
+/*
+ * preprocess stage: preprocesses every decoded image until END and passes its bytes on, then passes on END.
+ */
+   public static Void preprocessStage(BlockingQueue<Image> in, String method, BlockingQueue<Image> out) throws Exception
+   {
+      Image image = in.take();
+
+      while (image != END)
+      {
+         out.put(new Image(image.file, null, preprocess(image, method)));
+         image = in.take();
+      }
+
+      out.put(END);
+
+      return null;
+   } // public static Void preprocessStage(BlockingQueue<Image> in, String method, BlockingQueue<Image> out) throws Exception
+
+/*
+ * write stage: appends every preprocessed image to the dataset files until END.
+ */
+   public static Void writeStage(BlockingQueue<Image> in) throws Exception
+   {
+      Image image;
+
+      try (DataOutputStream tests = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(Aggregate.OUTPUTFILE)));
+           DataOutputStream imgs = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(Aggregate.OUTPUTIMGS))))
+      {
+         image = in.take();
+
+         while (image != END)
+         {
+            Aggregate.writeImage(image.bytes, tests, imgs);
+            System.out.println("PIPELINE: wrote " + image.file);
+
+            image = in.take();
+         }
+      } // try (DataOutputStream tests = ...
+
+      return null;
+   } // public static Void writeStage(BlockingQueue<Image> in) throws Exception
+
+/*
+ * decodes and preprocesses the given image with the given method and returns one byte per pel of the preprocessed image.
+ */
+   public static byte[] process(String file, String method) throws IOException
+   {
+      return preprocess(new Image(file, decodesGray(method) ? GrayPelArray.read(file) : null, null), method);
+   }
+
+/*
+ * preprocesses the given image with the given method (one of METHODS) and returns one byte per pel of the preprocessed
+ * image. The gray levels of the image are used if the method decodes them (see decodesGray), else its file is read.
+ */
+   public static byte[] preprocess(Image image, String method) throws IOException
+   {
+      GrayPelArray ret;
+
+      if (method.equals("gray"))
+      {
+         ret = ToIntArray.preprocessGrayFused(image.gray);
+      }
+      else if (method.equals("graysteps"))
+      {
+         ret = ToIntArray.preprocessGray(image.gray);
+      }
+      else if (method.equals("bands"))
+      {
+         ret = GrayPelArray.fromPelArray(ToIntArray.preprocessBands(PelBands.open(image.file)));
+      }
+      else if (method.equals("window"))
+      {
+         ret = GrayPelArray.fromPelArray(ToIntArray.preprocessWindow(image.file));
+      }
+      else
+      {
+         throw new IllegalArgumentException("unknown method " + method + ", expected one of " + String.join(" ", METHODS));
+      }
+
+      return ret.getPels();
+   } // public static byte[] preprocess(Image image, String method) throws IOException
+
+/*
+ * returns true if the given method preprocesses the gray levels decoded by the decode stage, false if it reads the file.
+ */
+   public static boolean decodesGray(String method)
+   {
+      return method.equals("gray") || method.equals("graysteps");
+   }
+
+/*
+ * returns the BMP images in the given directory, sorted by name.
+ */
+   public static List<String> listImages(String directory)
+   {
+      ArrayList<String> ret = new ArrayList<String>();
+      File[] files = new File(directory).listFiles();
+
+      if (files != null)
+      {
+         Arrays.sort(files);
+
+         for (File file : files)
+         {
+            if (file.isFile() && file.getName().toLowerCase().endsWith(IMAGEEXT))
+            {
+               ret.add(file.getPath());
+            }
+         }
+      }
+
+      return ret;
+   } // public static List<String> listImages(String directory)
+} // public class ImagePipeline
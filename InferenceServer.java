@@ -0,0 +1,416 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/*
+ * Author: Luke Zeng
+ * Date of Creation: 10/19/2026
+ *
+ * Description: Long-running inference server for a trained network. The weights are loaded once and kept in memory,
+ *              predictions are served over HTTP on localhost (JDK HttpServer).
+ *
+ *              Requests that come in at the same time are coalesced into micro-batches: a single batching thread takes
+ *              the first waiting request, then keeps collecting requests until the batch holds maxBatch inputs or
+ *              maxWait microseconds have passed, and runs the whole batch through the network at once.
+ *
+ * Usage: java InferenceServer <config.bin> [port] [maxBatch] [maxWaitMicros]
+ *    The compiled config gives the network configuration, the activation function and the weights file
+ *    (the same file the network populates from when the population method is 2).
+ *    The weights file is watched, and a new checkpoint written to it is swapped in without stopping the server.
+ *
+ * Endpoints:
+ *    POST /predict - body holds one set of inputs per line (whitespace separated numbers), the response holds
+ *                    one line of outputs per line of inputs.
+ *    GET  /stats   - request latency histogram and batch size counts.
+ *
+ * Table of Contents:
+ *    public static void main(String[] args)
+ *    public InferenceServer(Supplier<NetworkSnapshot> model, int port, int maxBatch, long maxWaitMicros) throws IOException
+ *    public void start()
+ *    public void stop()
+ *    public double[] predict(double[] inputs) throws InterruptedException, ExecutionException
+ *    public void batchLoop()
+ *    private void failWaiting()
+ *    public void handlePredict(HttpExchange exchange) throws IOException
+ *    public void handleStats(HttpExchange exchange) throws IOException
+ *    public static String readBody(InputStream in) throws IOException
+ *    public static void respond(HttpExchange exchange, int status, String body) throws IOException
+ */
+
+public class InferenceServer
+{
+   public static final int DEFAULT_PORT = 8080;          // default port to listen on.
+   public static final int DEFAULT_MAXBATCH = 32;        // default maximum number of inputs in one batch.
+   public static final long DEFAULT_MAXWAIT = 2000;      // default time (microseconds) a batch waits to fill up.
+   public static final long RELOADPOLL = 1000;           // time (milliseconds) between checks of the weights file for changes.
+   public static final long STOPWAIT = 1000;             // time (milliseconds) stop() waits for the request threads to finish.
+   public static final int HTTP_OK = 200;
+   public static final int HTTP_BADREQUEST = 400;
+   public static final int HTTP_BADMETHOD = 405;
+   public static final int HTTP_ERROR = 500;
+
+   public final Supplier<NetworkSnapshot> model; // gives the snapshot to run each batch on.
+   public final int maxBatch;                    // maximum number of inputs in one batch.
+   public final long maxWait;                    // maximum time (nanoseconds) a batch waits to fill up.
+
+   public final LatencyHistogram latency;        // latency of /predict requests (receive to respond).
+   public final AtomicLongArray batchSizes;      // batchSizes[n] counts the batches that held n inputs.
+
+   private final LinkedBlockingQueue<Pending> queue; // inputs waiting to be batched.
+   private final HttpServer server;
+   private final ExecutorService requests;           // threads the HTTP server handles requests on.
+   private final Thread batcher;
+   private volatile boolean running;
+
+/*
+ * One set of inputs waiting for its outputs.
+ */
+   private static class Pending
+   {
+      final double[] inputs;
+      final CompletableFuture<double[]> outputs = new CompletableFuture<double[]>();
+
+      Pending(double[] inputs)
+      {
+         this.inputs = inputs;
+      }
+   } // private static class Pending
+
+/*
+ * loads the network described by the given compiled config and serves it until the process is killed.
+ */
+   public static void main(String[] args)
+   {
+      if (args.length < 1)
+      {
+         System.out.println("Usage: java InferenceServer <config.bin> [port] [maxBatch] [maxWaitMicros]");
+      }
+      else
+      {
+         try
+         {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+            int maxBatch = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAXBATCH;
+            long maxWait = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_MAXWAIT;
+
+            Config cf = new Config(args[0]);
+            ModelRegistry registry = new ModelRegistry(ModelRegistry.DEFAULT_MAXBYTES);
+            ActivationFunction f = NetworkSnapshot.activation(cf.actfunct);
+
+            registry.get(cf.weightsFile, cf.numNodes, f); // load now, so a bad weights file is reported before serving.
+            registry.startWatching(RELOADPOLL);
+
+            InferenceServer server = new InferenceServer(registry.supplier(cf.weightsFile, cf.numNodes, f), port, maxBatch, maxWait);
+            server.start();
+
+            System.out.println("SERVER: serving " + cf.weightsFile + " on localhost:" + port + " (max batch " + maxBatch +
+                               ", max wait " + maxWait + " us), reloading it when it changes");
+         } // try
+         catch (NumberFormatException e)
+         {
+            System.out.println("port, maxBatch and maxWaitMicros must be numbers");
+         }
+         catch (IOException e)
+         {
+            System.out.println("Cannot load the configuration or the weights: " + e.getMessage());
+         }
+      } // else
+   } // public static void main(String[] args)
+
+/*
+ * Creates a server on localhost with the given port that runs batches of up to maxBatch inputs on the snapshot
+ * the given model supplies at the time of the batch. Call start() to start serving.
+ */
+   public InferenceServer(Supplier<NetworkSnapshot> model, int port, int maxBatch, long maxWaitMicros) throws IOException
+   {
+      this.model = model;
+      this.maxBatch = Math.max(1, maxBatch);
+      this.maxWait = TimeUnit.MICROSECONDS.toNanos(Math.max(0, maxWaitMicros));
+
+      latency = new LatencyHistogram();
+      batchSizes = new AtomicLongArray(this.maxBatch + 1);
+      queue = new LinkedBlockingQueue<Pending>();
+
+      server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+      server.createContext("/predict", this::handlePredict);
+      server.createContext("/stats", this::handleStats);
+      requests = Executors.newCachedThreadPool(); // request threads just wait for their batch.
+      server.setExecutor(requests);
+
+      batcher = new Thread(this::batchLoop, "inference-batcher");
+      batcher.setDaemon(true);
+   } // public InferenceServer(Supplier<NetworkSnapshot> model, int port, int maxBatch, long maxWaitMicros) throws IOException
+
+/*
+ * starts the batching thread and the HTTP server.
+ */
+   public void start()
+   {
+      running = true;
+      batcher.start();
+      server.start();
+   }
+
+/*
+ * stops accepting requests and stops the batching thread. Every request still waiting for a batch (queued, or in the batch
+ * that was being filled) fails with an IllegalStateException, so no request thread is left waiting for outputs that will
+ * never come; then the request threads are stopped.
+ */
+   public void stop()
+   {
+      running = false;
+      server.stop(0);
+      batcher.interrupt();
+
+      try
+      {
+         batcher.join(); // it fails the batch it was filling on the way out.
+         failWaiting();
+         requests.shutdownNow();
+         requests.awaitTermination(STOPWAIT, TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException e)
+      {
+         failWaiting();
+         requests.shutdownNow();
+         Thread.currentThread().interrupt();
+      }
+   } // public void stop()
+
+/*
+ * queues the given inputs for the next batch and waits for the outputs.
+ */
+   public double[] predict(double[] inputs) throws InterruptedException, ExecutionException
+   {
+      Pending pending = new Pending(inputs);
+
+      queue.put(pending);
+      if (!running) failWaiting(); // stopped while it was queued, so no batch will ever take it.
+
+      return pending.outputs.get();
+   } // public double[] predict(double[] inputs) throws InterruptedException, ExecutionException
+
+/*
+ * takes the first waiting request, fills the batch until it is full or maxWait has passed since that request was taken,
+ * then runs the batch and hands every request its outputs. Repeats until the server is stopped.
+ */
+   public void batchLoop()
+   {
+      ArrayList<Pending> batch = new ArrayList<Pending>();
+      Pending next;
+      double[][] inputs;
+      double[][] outputs;
+      long deadline;
+
+      while (running)
+      {
+         try
+         {
+            batch.clear();
+            batch.add(queue.take());
+            deadline = System.nanoTime() + maxWait;
+
+            next = batch.get(0);
+            while (next != null && batch.size() < maxBatch)
+            {
+               next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS); // null once the wait is over.
+               if (next != null)
+               {
+                  batch.add(next);
+               }
+            }
+
+            inputs = new double[batch.size()][];
+            for (int b = 0; b < batch.size(); b++)
+            {
+               inputs[b] = batch.get(b).inputs;
+            }
+
+            try
+            {
+               outputs = model.get().runBatch(inputs);
+
+               for (int b = 0; b < batch.size(); b++)
+               {
+                  batch.get(b).outputs.complete(outputs[b]);
+               }
+            }
+            catch (RuntimeException e) // a bad batch fails its requests, not the server.
+            {
+               for (Pending pending : batch)
+               {
+                  pending.outputs.completeExceptionally(e);
+               }
+            }
+
+            batchSizes.incrementAndGet(batch.size());
+         } // try
+         catch (InterruptedException e)
+         {
+            running = false;
+
+            for (Pending pending : batch) // the batch that was being filled (requests already answered keep their outputs).
+            {
+               pending.outputs.completeExceptionally(new IllegalStateException("server stopped"));
+            }
+         }
+      } // while (running)
+
+      failWaiting();
+   } // public void batchLoop()
+
+/*
+ * fails every request still in the queue with an IllegalStateException (the server is stopped, so no batch will take them).
+ */
+   private void failWaiting()
+   {
+      Pending pending;
+
+      while ((pending = queue.poll()) != null)
+      {
+         pending.outputs.completeExceptionally(new IllegalStateException("server stopped"));
+      }
+   }
+
+/*
+ * handles POST /predict: parses one set of inputs per line of the body, runs them (batched with any other requests)
+ * and responds with one line of outputs per set of inputs.
+ */
+   public void handlePredict(HttpExchange exchange) throws IOException
+   {
+      long start = System.nanoTime();
+      ArrayList<Pending> rows = new ArrayList<Pending>(); // every set of inputs in this request.
+      StringBuilder response = new StringBuilder();
+      NetworkSnapshot snapshot = model.get();
+      String[] tokens;
+      double[] inputs;
+
+      if (!exchange.getRequestMethod().equalsIgnoreCase("POST"))
+      {
+         respond(exchange, HTTP_BADMETHOD, "use POST\n");
+      }
+      else
+      {
+         try
+         {
+            for (String line : readBody(exchange.getRequestBody()).split("\n"))
+            {
+               tokens = line.trim().split("\\s+");
+
+               if (line.trim().length() != 0)
+               {
+                  if (tokens.length != snapshot.numInputs())
+                  {
+                     throw new NumberFormatException("expected " + snapshot.numInputs() + " inputs per line, got " + tokens.length);
+                  }
+
+                  inputs = new double[tokens.length];
+                  for (int m = 0; m < tokens.length; m++)
+                  {
+                     inputs[m] = Double.parseDouble(tokens[m]);
+                  }
+
+                  rows.add(new Pending(inputs));
+               } // if (line.trim().length() != 0)
+            } // for (String line : ...
+
+            for (Pending row : rows) // queue all rows before waiting, so they can share a batch.
+            {
+               queue.put(row);
+            }
+            if (!running) failWaiting(); // stopped while they were queued, so no batch will ever take them.
+
+            for (Pending row : rows)
+            {
+               for (double output : row.outputs.get())
+               {
+                  response.append(output + " ");
+               }
+               response.append("\n");
+            }
+
+            respond(exchange, HTTP_OK, response.toString());
+            latency.record(System.nanoTime() - start);
+         } // try
+         catch (NumberFormatException e)
+         {
+            respond(exchange, HTTP_BADREQUEST, e.getMessage() + "\n");
+         }
+         catch (InterruptedException | ExecutionException e)
+         {
+            respond(exchange, HTTP_ERROR, "prediction failed: " + e + "\n");
+         }
+      } // else
+   } // public void handlePredict(HttpExchange exchange) throws IOException
+
+/*
+ * handles GET /stats: responds with the latency histogram and the number of batches of each size.
+ */
+   public void handleStats(HttpExchange exchange) throws IOException
+   {
+      StringBuilder response = new StringBuilder();
+
+      response.append("request latency:\n" + latency);
+      response.append("batch sizes:\n");
+
+      for (int size = 1; size <= maxBatch; size++)
+      {
+         if (batchSizes.get(size) > 0)
+         {
+            response.append(size + ": " + batchSizes.get(size) + "\n");
+         }
+      }
+
+      respond(exchange, HTTP_OK, response.toString());
+   } // public void handleStats(HttpExchange exchange) throws IOException
+
+/*
+ * returns everything left in the given stream as a string.
+ */
+   public static String readBody(InputStream in) throws IOException
+   {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buff = new byte[4096];
+      int read = in.read(buff);
+
+      while (read != -1)
+      {
+         bytes.write(buff, 0, read);
+         read = in.read(buff);
+      }
+
+      return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+   } // public static String readBody(InputStream in) throws IOException
+
+/*
+ * sends the given status and (plain text) body as the response to the given exchange.
+ */
+   public static void respond(HttpExchange exchange, int status, String body) throws IOException
+   {
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      OutputStream out;
+
+      exchange.getResponseHeaders().set("Content-Type", "text/plain");
+      exchange.sendResponseHeaders(status, bytes.length);
+
+      out = exchange.getResponseBody();
+      out.write(bytes);
+      out.close();
+   } // public static void respond(HttpExchange exchange, int status, String body) throws IOException
+} // public class InferenceServer
@@ -31,4 +31,7 @@ public class InputValidation
    public boolean weightsFileDefined;
    public boolean inputsDefined;
    public boolean outputsDefined;
+   public boolean seedDefined;
+   public boolean valInputsDefined;
+   public boolean valOutputsDefined;
 } // public class InputValidation
@@ -0,0 +1,104 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Author: Luke Zeng
+ * Date of Creation: 10/19/2026
+ *
+ * Description: Thread safe histogram of latencies. Bucket b counts latencies from 2^b up to 2^(b+1) microseconds
+ *              (bucket 0 also takes everything below 1 microsecond), so a few dozen buckets cover from microseconds to
+ *              hours. Recording is a single atomic increment, so request threads can record without locking.
+ *
+ * Table of Contents:
+ *    public LatencyHistogram()
+ *    public void record(long nanos)
+ *    public long count()
+ *    public long percentile(double p)
+ *    public String toString()
+ */
+
+public class LatencyHistogram
+{
+   public static final int NUMBUCKETS = 40; // 2^40 microseconds is about 12 days, which is plenty.
+
+   private final AtomicLongArray buckets;   // number of latencies recorded in each bucket.
+
+/*
+ * Creates an empty histogram.
+ */
+   public LatencyHistogram()
+   {
+      buckets = new AtomicLongArray(NUMBUCKETS);
+   }
+
+/*
+ * records the given latency (in nanoseconds).
+ */
+   public void record(long nanos)
+   {
+      long micros = Math.max(1, nanos / 1000);
+      int bucket = Math.min(NUMBUCKETS-1, 63 - Long.numberOfLeadingZeros(micros)); // floor(log2(micros))
+
+      buckets.incrementAndGet(bucket);
+   }
+
+/*
+ * returns the number of latencies recorded.
+ */
+   public long count()
+   {
+      long ret = 0;
+
+      for (int bucket = 0; bucket < NUMBUCKETS; bucket++)
+      {
+         ret += buckets.get(bucket);
+      }
+
+      return ret;
+   } // public long count()
+
+/*
+ * returns the upper bound (in microseconds) of the bucket the given percentile (0 to 100) falls in, 0 if nothing was recorded.
+ */
+   public long percentile(double p)
+   {
+      long total = count();
+      long target = (long) Math.ceil(total * p / 100.0);
+      long seen = 0;
+      long ret = 0;
+      int bucket = 0;
+
+      while (total > 0 && ret == 0 && bucket < NUMBUCKETS)
+      {
+         seen += buckets.get(bucket);
+         if (seen >= target)
+         {
+            ret = 1L << (bucket+1);
+         }
+         bucket++;
+      }
+
+      return ret;
+   } // public long percentile(double p)
+
+/*
+ * returns the nonempty buckets, one per line, followed by the median and the 99th percentile.
+ */
+   public String toString()
+   {
+      StringBuilder ret = new StringBuilder();
+      long curCount;
+
+      for (int bucket = 0; bucket < NUMBUCKETS; bucket++)
+      {
+         curCount = buckets.get(bucket);
+         if (curCount > 0)
+         {
+            ret.append((bucket == 0 ? 0 : 1L << bucket) + "-" + (1L << (bucket+1)) + " us: " + curCount + "\n");
+         }
+      }
+
+      ret.append("count: " + count() + ", p50 <= " + percentile(50.0) + " us, p99 <= " + percentile(99.0) + " us\n");
+
+      return ret.toString();
+   } // public String toString()
+} // public class LatencyHistogram
@@ -0,0 +1,455 @@
+import java.util.function.IntUnaryOperator;
+
+/*
+ * Author: Luke Zeng
+ * Date of Creation: 10/19/2026
+ *
+ * Description: The PelArray operations as a lazy pipeline. Applying an operation to a LazyPelArray doesn't compute anything;
+ *              it returns a new LazyPelArray that knows how to get any one of its pels from the pels of the image it was
+ *              applied to. Pels are only computed when they are asked for (pel, toPelArray, getXcom, getYcom), and then only
+ *              the source pels they depend on are:
+ *
+ *                 - geometric operations (offset, rotations, flips, crop, scale) map the position of the pel asked for to
+ *                   the position in their source it comes from, so a crop or a scale at the end of a pipeline only ever
+ *                   asks the operations before it for the pels it keeps;
+ *                 - per pel operations (gray scale, ones compliment, one color, forceMin, forceMax, offsetColors) applied
+ *                   one after the other are fused into one function, so each pel goes through all of them in one step.
+ *
+ *              Every operation gives the pels the PelArray operation of the same name gives. Nothing is cached: a pel asked
+ *              for twice is computed twice, so an image that is read more than once (or whose center of mass is needed,
+ *              which reads every pel) should be made a PelArray first if its pipeline is long.
+ *
+ * Table of Contents:
+ *    protected LazyPelArray(int width, int height)
+ *    public static LazyPelArray of(PelArray p)
+ *    public abstract int pel(int row, int col)
+ *    public int getWidth()
+ *    public int getHeight()
+ *    public PelArray toPelArray()
+ *    public boolean calcCOM()
+ *    public int getXcom()
+ *    public int getYcom()
+ *    public LazyPelArray offset(int x, int y)
+ *    public LazyPelArray rotateCCW90()
+ *    public LazyPelArray rotateCW90()
+ *    public LazyPelArray flipHorizontal()
+ *    public LazyPelArray flipVertical()
+ *    public LazyPelArray crop(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+ *    public LazyPelArray scale(int newColumnWidth, int newRowHeight)
+ *    public LazyPelArray grayScaleImage()
+ *    public LazyPelArray onesComplimentImage()
+ *    public LazyPelArray oneColorImage(int color)
+ *    public LazyPelArray forceMin(int limit, int forced)
+ *    public LazyPelArray forceMax(int limit, int forced)
+ *    public LazyPelArray offsetColors(int redOffset, int greenOffset, int blueOffset)
+ *    public LazyPelArray map(IntUnaryOperator op)
+ *    protected boolean inside(int row, int col)
+ */
+
+public abstract class LazyPelArray
+{
+   protected final int width;
+   protected final int height;
+
+   private boolean comKnownFlag; // true once the center of mass is calculated.
+   private int xComColumnVal;    // x (column) center of mass value.
+   private int yComRowVal;       // y (row) center of mass value.
+
+/*
+ * An image with its pels in memory, where every pipeline starts.
+ */
+   private static class Source extends LazyPelArray
+   {
+      final int[][] pels;
+
+      Source(int[][] pels)
+      {
+         super(pels[0].length, pels.length);
+         this.pels = pels;
+      }
+
+      @Override
+      public int pel(int row, int col)
+      {
+         return pels[row][col];
+      }
+   } // private static class Source extends LazyPelArray
+
+/*
+ * Per pel operations (already fused into one function) applied to a source that isn't itself a PelOp.
+ */
+   private static class PelOp extends LazyPelArray
+   {
+      final LazyPelArray source;
+      final IntUnaryOperator op;
+
+      PelOp(LazyPelArray source, IntUnaryOperator op)
+      {
+         super(source.width, source.height);
+         this.source = source;
+         this.op = op;
+      }
+
+      @Override
+      public int pel(int row, int col)
+      {
+         return op.applyAsInt(source.pel(row, col));
+      }
+   } // private static class PelOp extends LazyPelArray
+
+/*
+ * Creates an image of the given size (for the operations).
+ */
+   protected LazyPelArray(int width, int height)
+   {
+      this.width = width;
+      this.height = height;
+   }
+
+/*
+ * returns the start of a pipeline on the pels of the given PelArray (they are read, not copied, so they shouldn't change
+ * while the pipeline is in use).
+ */
+   public static LazyPelArray of(PelArray p)
+   {
+      return new Source(p.arrayOfPels);
+   }
+
+/*
+ * returns the pel at the given row and column, computing it from the source image.
+ */
+   public abstract int pel(int row, int col);
+
+   public int getWidth()
+   {
+      return width;
+   }
+
+   public int getHeight()
+   {
+      return height;
+   }
+
+/*
+ * computes every pel and returns them as a PelArray.
+ */
+   public PelArray toPelArray()
+   {
+      int[][] targetArray = new int[height][width];
+
+      for (int iRow = 0; iRow < height; ++iRow)
+      {
+         for (int iCol = 0; iCol < width; ++iCol)
+         {
+            targetArray[iRow][iCol] = pel(iRow, iCol);
+         }
+      }
+
+      return new PelArray(targetArray);
+   } // public PelArray toPelArray()
+
+/*
+ * calculates the center of mass the way PelArray.calcCOM does, computing every pel once without keeping them. Large images
+ * are computed on all cores (see PelArray.reduceRows), so pel must not change anything.
+ */
+   public boolean calcCOM()
+   {
+      double[] sums = PelArray.reduceRows(height, width, 3, (firstRow, endRow, blockSums) ->
+      {
+         double colCom = 0.0, rowCom = 0.0, mass = 0.0;
+         double value;
+
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
+         {
+            for (int iCol = 0; iCol < width; ++iCol)
+            {
+               value = (double) pel(iRow, iCol);
+               colCom += ((double) iCol) * value;
+               rowCom += ((double) iRow) * value;
+               mass += value;
+            }
+         }
+
+         blockSums[0] += colCom;
+         blockSums[1] += rowCom;
+         blockSums[2] += mass;
+      });
+      double fColCom = sums[0], fRowCom = sums[1], fMass = sums[2];
+
+      comKnownFlag = true;
+
+      if (fMass > 0.0)
+      {
+         xComColumnVal = (int) Math.round(fColCom / fMass);
+         yComRowVal = (int) Math.round(fRowCom / fMass);
+      }
+      else if (fMass == 0.0) // all pels are zero, so use the center of the image.
+      {
+         xComColumnVal = width / 2;
+         yComRowVal = height / 2;
+      }
+      else // negative pels, PelArray.calcCOM reports an error.
+      {
+         comKnownFlag = false;
+         xComColumnVal = 0;
+         yComRowVal = 0;
+      }
+
+      return comKnownFlag;
+   } // public boolean calcCOM()
+
+/*
+ * returns the x (column) value of the center of mass, calculating it first if needed.
+ */
+   public int getXcom()
+   {
+      if (!comKnownFlag) calcCOM();
+
+      return xComColumnVal;
+   }
+
+/*
+ * returns the y (row) value of the center of mass, calculating it first if needed.
+ */
+   public int getYcom()
+   {
+      if (!comKnownFlag) calcCOM();
+
+      return yComRowVal;
+   }
+
+/*
+ * offsets the image by x columns and y rows, filling the empty space with zero.
+ */
+   public LazyPelArray offset(int x, int y)
+   {
+      LazyPelArray source = this;
+
+      return new LazyPelArray(width, height)
+      {
+         @Override
+         public int pel(int row, int col)
+         {
+            return source.inside(row - y, col - x) ? source.pel(row - y, col - x) : 0;
+         }
+      };
+   } // public LazyPelArray offset(int x, int y)
+
+/*
+ * rotates the image 90 degrees counter clockwise.
+ */
+   public LazyPelArray rotateCCW90()
+   {
+      LazyPelArray source = this;
+
+      return new LazyPelArray(height, width)
+      {
+         @Override
+         public int pel(int row, int col)
+         {
+            return source.pel(col, source.width - 1 - row);
+         }
+      };
+   }
+
+/*
+ * rotates the image 90 degrees clockwise.
+ */
+   public LazyPelArray rotateCW90()
+   {
+      LazyPelArray source = this;
+
+      return new LazyPelArray(height, width)
+      {
+         @Override
+         public int pel(int row, int col)
+         {
+            return source.pel(source.height - 1 - col, row);
+         }
+      };
+   }
+
+/*
+ * flips the image about the horizontal central line (top becomes bottom).
+ */
+   public LazyPelArray flipHorizontal()
+   {
+      LazyPelArray source = this;
+
+      return new LazyPelArray(width, height)
+      {
+         @Override
+         public int pel(int row, int col)
+         {
+            return source.pel(height - 1 - row, col);
+         }
+      };
+   }
+
+/*
+ * flips the image about the vertical central line (left becomes right).
+ */
+   public LazyPelArray flipVertical()
+   {
+      LazyPelArray source = this;
+
+      return new LazyPelArray(width, height)
+      {
+         @Override
+         public int pel(int row, int col)
+         {
+            return source.pel(row, width - 1 - col);
+         }
+      };
+   }
+
+/*
+ * crops the image to the given frame (inclusive, x is columns and y is rows). Parts of the frame outside the image are 0.
+ */
+   public LazyPelArray crop(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+   {
+      LazyPelArray source = this;
+
+      return new LazyPelArray(xLowerRight - xUpperLeft + 1, yLowerRight - yUpperLeft + 1)
+      {
+         @Override
+         public int pel(int row, int col)
+         {
+            int iRow = row + yUpperLeft;
+            int iCol = col + xUpperLeft;
+
+            return source.inside(iRow, iCol) ? source.pel(iRow, iCol) : 0;
+         }
+      };
+   } // public LazyPelArray crop(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+
+/*
+ * scales the image to the given size like PelArray.scale: when the image gets smaller in both directions each new pel is
+ * the average of its box of source pels (PelArray.boxScale), so every source pel is pulled once; otherwise each new pel is
+ * taken from the nearest source pel.
+ */
+   public LazyPelArray scale(int newColumnWidth, int newRowHeight)
+   {
+      LazyPelArray source = this;
+
+      if (newColumnWidth <= width && newRowHeight <= height)
+      {
+         return new LazyPelArray(newColumnWidth, newRowHeight)
+         {
+            @Override
+            public int pel(int row, int col)
+            {
+               int firstRow = PelArray.boxStart(row, source.height, newRowHeight);
+               int endRow = PelArray.boxStart(row + 1, source.height, newRowHeight);
+               int firstCol = PelArray.boxStart(col, source.width, newColumnWidth);
+               int endCol = PelArray.boxStart(col + 1, source.width, newColumnWidth);
+               int count = (endRow - firstRow) * (endCol - firstCol);
+               long red = 0, green = 0, blue = 0;
+               int pel;
+
+               for (int iRow = firstRow; iRow < endRow; ++iRow)
+               {
+                  for (int iCol = firstCol; iCol < endCol; ++iCol)
+                  {
+                     pel = source.pel(iRow, iCol);
+                     red   += (pel & PelArray.RED) >> 16;
+                     green += (pel & PelArray.GREEN) >> 8;
+                     blue  += pel & PelArray.BLUE;
+                  }
+               }
+
+               return (PelArray.boxAverage(red, count) << 16) | (PelArray.boxAverage(green, count) << 8) | PelArray.boxAverage(blue, count);
+            } // public int pel(int row, int col)
+         };
+      } // if (newColumnWidth <= width && newRowHeight <= height)
+
+      double xColumnRatio = ((double) (width - 1)) / ((double) (newColumnWidth - 1));
+      double yRowRatio = ((double) (height - 1)) / ((double) (newRowHeight - 1));
+
+      return new LazyPelArray(newColumnWidth, newRowHeight)
+      {
+         @Override
+         public int pel(int row, int col)
+         {
+            return source.pel((int) Math.round(((double) row) * yRowRatio), (int) Math.round(((double) col) * xColumnRatio));
+         }
+      };
+   } // public LazyPelArray scale(int newColumnWidth, int newRowHeight)
+
+/*
+ * converts every pel to gray scale (see PelArray.grayScalePel).
+ */
+   public LazyPelArray grayScaleImage()
+   {
+      return map(pel -> BMPDecoder.gray(pel) * GrayPelArray.REPLICATE);
+   }
+
+/*
+ * takes the ones complement of every pel.
+ */
+   public LazyPelArray onesComplimentImage()
+   {
+      return map(pel -> (~pel) & PelArray.WHITE);
+   }
+
+/*
+ * masks every pel with a single color: PelArray.RED, GREEN or BLUE.
+ */
+   public LazyPelArray oneColorImage(int color)
+   {
+      return map(pel -> pel & color);
+   }
+
+/*
+ * sets every pel below limit to forced.
+ */
+   public LazyPelArray forceMin(int limit, int forced)
+   {
+      return map(pel -> pel < limit ? forced : pel);
+   }
+
+/*
+ * sets every pel above limit to forced.
+ */
+   public LazyPelArray forceMax(int limit, int forced)
+   {
+      return map(pel -> pel > limit ? forced : pel);
+   }
+
+/*
+ * adds the given offsets to the colors of every pel, keeping each color between 0 and 255.
+ */
+   public LazyPelArray offsetColors(int redOffset, int greenOffset, int blueOffset)
+   {
+      return map(pel ->
+      {
+         int red   = Math.max(Math.min(((pel & PelArray.RED)   >> 16) + redOffset,   255), 0);
+         int green = Math.max(Math.min(((pel & PelArray.GREEN) >>  8) + greenOffset, 255), 0);
+         int blue  = Math.max(Math.min((pel & PelArray.BLUE)          + blueOffset,  255), 0);
+
+         return (red << 16) | (green << 8) | blue;
+      });
+   } // public LazyPelArray offsetColors(int redOffset, int greenOffset, int blueOffset)
+
+/*
+ * applies the given function to every pel. If this image is itself the result of per pel operations, the function is
+ * fused with them instead of being applied on top of them.
+ */
+   public LazyPelArray map(IntUnaryOperator op)
+   {
+      if (this instanceof PelOp)
+      {
+         return new PelOp(((PelOp) this).source, ((PelOp) this).op.andThen(op));
+      }
+
+      return new PelOp(this, op);
+   } // public LazyPelArray map(IntUnaryOperator op)
+
+/*
+ * returns whether the given row and column are inside the image.
+ */
+   protected boolean inside(int row, int col)
+   {
+      return row >= 0 && row < height && col >= 0 && col < width;
+   }
+} // public class LazyPelArray
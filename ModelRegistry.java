@@ -0,0 +1,332 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+ * Author: Luke Zeng
+ * Date of Creation: 10/19/2026
+ *
+ * Description: Registry of trained networks for serving. A network is identified by its weights file, its configuration
+ *              (nodes on each activation layer) and its activation function, and is loaded the first time it is asked for.
+ *              Loaded networks are kept in memory up to a budget of bytes of weights; when the budget is exceeded the
+ *              least recently used networks are dropped (and loaded again if they are asked for later).
+ *
+ *              The registry can watch the weights files of the loaded networks. When a weights file changes (its last
+ *              modified time or its size), the new weights are loaded completely into a new snapshot and only then
+ *              swapped in, so readers get either the old or the new network, never a half loaded one. If the new weights
+ *              can't be loaded, the old network is kept (and the problem is reported once, not on every check, until the
+ *              file changes again). FileHandler.writeWeights replaces the weights file in one move, so a checkpoint is
+ *              never read while it is being written.
+ *
+ *              Weights are never read from disk while the registry is held: a network that isn't loaded yet gets an entry
+ *              right away and is loaded by the first thread that asks for it, while the threads asking for other
+ *              networks carry on and the threads asking for the same one wait for that load.
+ *
+ * Table of Contents:
+ *    public ModelRegistry(long maxBytes)
+ *    public NetworkSnapshot get(String weightsFile, int[] numNodes, ActivationFunction f) throws IOException
+ *    private void loadFirst(String key, Entry entry)
+ *    public Supplier<NetworkSnapshot> supplier(String weightsFile, int[] numNodes, ActivationFunction f)
+ *    public void checkForUpdates()
+ *    public synchronized void startWatching(long pollMillis)
+ *    public synchronized void stop()
+ *    public synchronized int size()
+ *    public synchronized long bytes()
+ *    private void evict()
+ *    private static String key(String weightsFile, int[] numNodes, ActivationFunction f)
+ */
+
+public class ModelRegistry
+{
+   public static final long DEFAULT_MAXBYTES = 1L << 30; // default budget of bytes of weights kept in memory (1 GiB).
+
+   public final long maxBytes;                         // budget of bytes of weights kept in memory.
+
+   private final LinkedHashMap<String, Entry> models;  // loaded networks, least recently used first.
+   private long totalBytes;                            // bytes of weights of all loaded networks.
+   private ScheduledExecutorService watcher;           // polls the weights files for changes, null when not watching.
+
+/*
+ * One loaded network and the state of its weights file when it was loaded.
+ */
+   private static class Entry
+   {
+      final String weightsFile;
+      final int[] numNodes;
+      final ActivationFunction f;
+      final CompletableFuture<Void> loaded = new CompletableFuture<Void>(); // done once the first load is over (or failed).
+      volatile NetworkSnapshot snapshot; // swapped as a whole when the weights file changes.
+      long bytes;                        // bytes of weights counted in totalBytes (0 until counted).
+      long lastModified;                 // last modified time of the weights file that was loaded.
+      long length;                       // size of the weights file that was loaded.
+      long failedModified = -1;          // last modified time and size of the weights file the last reload failed on
+      long failedLength = -1;            // (so a file that can't be loaded is only tried and reported once).
+
+      Entry(String weightsFile, int[] numNodes, ActivationFunction f)
+      {
+         this.weightsFile = weightsFile;
+         this.numNodes = numNodes.clone();
+         this.f = f;
+      }
+
+/*
+ * returns whether the weights file changed since it was loaded, and isn't still the version the last reload failed on.
+ */
+      boolean changed()
+      {
+         File file = new File(weightsFile);
+         long curModified = file.lastModified();
+         long curLength = file.length();
+
+         return (curModified != lastModified || curLength != length) && (curModified != failedModified || curLength != failedLength);
+      }
+
+/*
+ * remembers the current version of the weights file as one that can't be loaded.
+ */
+      void failed()
+      {
+         File file = new File(weightsFile);
+
+         failedModified = file.lastModified();
+         failedLength = file.length();
+      }
+
+/*
+ * loads the weights file into a new snapshot and swaps it in (the old snapshot stays in use if loading fails).
+ */
+      void load() throws IOException
+      {
+         File file = new File(weightsFile);
+         long curModified = file.lastModified(); // read before loading, so a change during the load is seen next time.
+         long curLength = file.length();
+
+         snapshot = NetworkSnapshot.load(weightsFile, numNodes, f);
+         lastModified = curModified;
+         length = curLength;
+      } // void load() throws IOException
+   } // private static class Entry
+
+/*
+ * Creates an empty registry that keeps at most the given number of bytes of weights in memory
+ * (the most recently used network is always kept, even if it alone is over the budget).
+ */
+   public ModelRegistry(long maxBytes)
+   {
+      this.maxBytes = maxBytes;
+
+      models = new LinkedHashMap<String, Entry>(16, 0.75f, true); // access order, so the eldest is the least recently used.
+   }
+
+/*
+ * returns the network with the given weights file, configuration and activation function, loading it if it isn't
+ * loaded yet (without holding the registry, see loadFirst). Throws an IOException if the weights file is missing or
+ * doesn't match the configuration.
+ */
+   public NetworkSnapshot get(String weightsFile, int[] numNodes, ActivationFunction f) throws IOException
+   {
+      String key = key(weightsFile, numNodes, f);
+      Entry entry;
+      boolean loading = false; // this thread loads the network.
+
+      synchronized (this)
+      {
+         entry = models.get(key);
+
+         if (entry == null)
+         {
+            entry = new Entry(weightsFile, numNodes, f);
+            models.put(key, entry);
+            loading = true;
+         }
+      } // synchronized (this)
+
+      if (loading)
+      {
+         loadFirst(key, entry);
+      }
+
+      try
+      {
+         entry.loaded.get(); // returns at once once the network is loaded.
+      }
+      catch (ExecutionException e)
+      {
+         if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+         throw new IOException(e.getCause().getMessage(), e.getCause());
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException("interrupted while " + weightsFile + " was loading");
+      }
+
+      return entry.snapshot;
+   } // public NetworkSnapshot get(String weightsFile, int[] numNodes, ActivationFunction f) throws IOException
+
+/*
+ * loads a network just added to the registry, without holding the registry, then counts its bytes (if it wasn't dropped
+ * in the meantime) and lets the threads waiting for it go on. If it can't be loaded it is taken out of the registry again,
+ * so the next get tries again, and the waiting threads get the error.
+ */
+   private void loadFirst(String key, Entry entry)
+   {
+      try
+      {
+         entry.load();
+      }
+      catch (IOException | RuntimeException e)
+      {
+         synchronized (this)
+         {
+            models.remove(key, entry);
+         }
+         entry.loaded.completeExceptionally(e);
+         return;
+      }
+
+      synchronized (this)
+      {
+         if (models.get(key) == entry)
+         {
+            entry.bytes = entry.snapshot.bytes();
+            totalBytes += entry.bytes;
+            evict();
+         }
+      }
+
+      entry.loaded.complete(null);
+   } // private void loadFirst(String key, Entry entry)
+
+/*
+ * returns a supplier that gives the current version of the given network every time it is called
+ * (for InferenceServer). Throws an UncheckedIOException when the network can't be loaded.
+ */
+   public Supplier<NetworkSnapshot> supplier(String weightsFile, int[] numNodes, ActivationFunction f)
+   {
+      return () ->
+      {
+         try
+         {
+            return get(weightsFile, numNodes, f);
+         }
+         catch (IOException e)
+         {
+            throw new UncheckedIOException(e);
+         }
+      };
+   } // public Supplier<NetworkSnapshot> supplier(String weightsFile, int[] numNodes, ActivationFunction f)
+
+/*
+ * reloads every loaded network whose weights file changed since it was loaded. The weights are loaded without holding
+ * the registry, so networks can still be served (the old version) while the new version loads.
+ */
+   public void checkForUpdates()
+   {
+      ArrayList<Entry> entries;
+
+      synchronized (this)
+      {
+         entries = new ArrayList<Entry>(models.values());
+      }
+
+      for (Entry entry : entries)
+      {
+         if (entry.snapshot != null && entry.changed()) // networks still on their first load are left to it.
+         {
+            try
+            {
+               entry.load(); // same configuration, so the new version takes up the same bytes.
+               System.out.println("REGISTRY: reloaded " + entry.weightsFile);
+            }
+            catch (IOException e)
+            {
+               entry.failed(); // reported once, tried again when the file changes.
+               System.out.println("REGISTRY: keeping the old weights of " + entry.weightsFile + ", cannot reload: " + e.getMessage());
+            }
+         } // if (entry.changed())
+      } // for (Entry entry : entries)
+   } // public void checkForUpdates()
+
+/*
+ * checks the weights files for changes every pollMillis milliseconds on a background thread, until stop() is called.
+ */
+   public synchronized void startWatching(long pollMillis)
+   {
+      if (watcher == null)
+      {
+         watcher = Executors.newSingleThreadScheduledExecutor(r ->
+         {
+            Thread t = new Thread(r, "registry-watcher");
+            t.setDaemon(true);
+            return t;
+         });
+         watcher.scheduleWithFixedDelay(this::checkForUpdates, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+      }
+   } // public synchronized void startWatching(long pollMillis)
+
+/*
+ * stops watching the weights files.
+ */
+   public synchronized void stop()
+   {
+      if (watcher != null)
+      {
+         watcher.shutdownNow();
+         watcher = null;
+      }
+   }
+
+/*
+ * returns the number of loaded networks.
+ */
+   public synchronized int size()
+   {
+      return models.size();
+   }
+
+/*
+ * returns the bytes of weights of all loaded networks.
+ */
+   public synchronized long bytes()
+   {
+      return totalBytes;
+   }
+
+/*
+ * drops the least recently used networks until the loaded networks fit in the budget (keeps at least one).
+ * Must be called while holding the registry.
+ */
+   private void evict()
+   {
+      Iterator<Map.Entry<String, Entry>> eldest = models.entrySet().iterator();
+      Entry entry;
+
+      while (totalBytes > maxBytes && models.size() > 1)
+      {
+         entry = eldest.next().getValue();
+         eldest.remove();
+         totalBytes -= entry.bytes; // 0 for a network still loading, which isn't counted yet.
+      }
+   } // private void evict()
+
+/*
+ * returns the key identifying the given network in the registry.
+ */
+   private static String key(String weightsFile, int[] numNodes, ActivationFunction f)
+   {
+      return weightsFile + " " + Arrays.toString(numNodes) + " " + f.getClass().getName();
+   }
+} // public class ModelRegistry
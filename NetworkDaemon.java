@@ -0,0 +1,421 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Author: Luke Zeng
+ * Date of Creation: 10/19/2026
+ *
+ * Description: Resident daemon that runs jobs for the network and the image tools inside one JVM, so a script of jobs
+ *              doesn't pay for JVM startup and JIT warm-up on every line. Jobs are accepted over a socket on localhost
+ *              and run on a pool of worker threads; code that ran in an earlier job stays compiled for the next one.
+ *
+ *              A job is one line, written the way it would be on the command line, with or without the leading "java"
+ *              (JVM options like -Xmx5g are ignored), so the existing .cmd scripts can be submitted as is:
+ *                 ABCDEFGHIJKLMN w.bin          (or: train w.bin; the configuration decides if it trains or runs)
+ *                 CodeCompiler w.loml           (or: compile w.loml)
+ *                 java BMP2OneByte 11.bmp 11.bin &
+ *                 java ToIntArray 4032 3024 11.bin
+ *                 java BGR2BMP bw 100 100 modified11.bin processed_11.bmp
+ *                 java -Xmx5g Aggregate modified11.bin modified12.bin
+ *                 shutdown                      (stops the daemon)
+ *
+ *              As in the scripts, a job ending in & runs in the background: it is queued as soon as it is read and runs
+ *              alongside the jobs around it. Any other job waits for every earlier job of its connection to finish, and the
+ *              next line waits for it, so a step that reads the files of the step before it finds them written. The output
+ *              of the jobs is sent back in the order the jobs were sent, each followed by a "DONE <job>" or "FAILED <job>: <reason>" line. Output a job prints on
+ *              its worker thread goes back to the client, output of threads the job starts itself goes to the daemon's
+ *              console. Tools that keep their state in static fields (BMP2OneByte, ToIntArray) and tools that always
+ *              write the same files (Aggregate) run one job at a time, everything else runs in parallel.
+ *
+ * Usage: java NetworkDaemon [port] [workers]        starts the daemon.
+ *        java NetworkDaemon submit <jobfile> [port]   sends every line of the job file to the daemon and prints the output.
+ *
+ * Table of Contents:
+ *    public static void main(String[] args)
+ *    public NetworkDaemon(int port, int numWorkers) throws IOException
+ *    public void serve()
+ *    public void shutdown()
+ *    public void handle(Socket client)
+ *    public String runJob(String[] job)
+ *    public static String[] parseJob(String line)
+ *    private static void awaitAll(ArrayList<Future<String>> jobs)
+ *    public static void submit(String jobfile, int port) throws IOException
+ */
+
+public class NetworkDaemon
+{
+   public static final int DEFAULT_PORT = 7070;      // default port to listen on.
+   public static final String SUBMIT = "submit";     // first argument of main to submit a job file instead of starting the daemon.
+   public static final String SHUTDOWN = "shutdown"; // job that stops the daemon.
+   public static final String DONE = "DONE";         // starts the line that ends the output of a job that finished.
+   public static final String FAILED = "FAILED";     // starts the line that ends the output of a job that failed.
+   public static final String JAVA = "java";         // optional first word of a job.
+   public static final String BACKGROUND = "&";      // optional last word of a job that runs in the background.
+
+   private final HashMap<String, Tool> tools;   // the program each job name runs.
+   private final HashMap<String, Object> locks; // tools that can only run one job at a time, by job name.
+   private final ExecutorService workers;       // runs the jobs.
+   private final ServerSocket socket;           // accepts connections from clients.
+   private final PrintStream console;           // the daemon's own output (System.out before the daemon replaced it).
+   private final ThreadLocal<ByteArrayOutputStream> jobOutput; // collects the output of the job running on a worker thread.
+   private volatile boolean running;
+
+/*
+ * The main method of a program a job runs.
+ */
+   private interface Tool
+   {
+      void main(String[] args) throws Exception;
+   }
+
+/*
+ * Sends what is printed on a thread running a job to the output of that job, and everything else to the console.
+ */
+   private class JobRouter extends OutputStream
+   {
+      public void write(int b) throws IOException
+      {
+         target().write(b);
+      }
+
+      public void write(byte[] b, int off, int len) throws IOException
+      {
+         target().write(b, off, len);
+      }
+
+      public void flush()
+      {
+         console.flush();
+      }
+
+      private OutputStream target()
+      {
+         ByteArrayOutputStream out = jobOutput.get();
+
+         return out == null ? console : out;
+      }
+   } // private class JobRouter extends OutputStream
+
+/*
+ * starts the daemon, or submits a job file to a running daemon if the first argument is "submit".
+ */
+   public static void main(String[] args)
+   {
+      NetworkDaemon daemon;
+
+      try
+      {
+         if (args.length >= 2 && args[0].equals(SUBMIT))
+         {
+            submit(args[1], args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PORT);
+         }
+         else
+         {
+            daemon = new NetworkDaemon(args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT,
+                                       args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors());
+            daemon.serve();
+         }
+      } // try
+      catch (NumberFormatException e)
+      {
+         System.out.println("Usage: java NetworkDaemon [port] [workers] | java NetworkDaemon submit <jobfile> [port]");
+      }
+      catch (IOException e)
+      {
+         System.out.println("DAEMON: " + e.getMessage());
+      }
+   } // public static void main(String[] args)
+
+/*
+ * Creates a daemon listening on the given port of localhost that runs jobs on the given number of worker threads.
+ * Replaces System.out so the output of every job can be sent back to its client. Call serve() to start accepting jobs.
+ */
+   public NetworkDaemon(int port, int numWorkers) throws IOException
+   {
+      tools = new HashMap<String, Tool>();
+      tools.put("ABCDEFGHIJKLMN", ABCDEFGHIJKLMN::main);
+      tools.put("train", ABCDEFGHIJKLMN::main);
+      tools.put("CodeCompiler", CodeCompiler::main);
+      tools.put("compile", CodeCompiler::main);
+      tools.put("BMP2OneByte", BMP2OneByte::main);
+      tools.put("ToIntArray", ToIntArray::main);
+      tools.put("BGR2BMP", BGR2BMP::main);
+      tools.put("Aggregate", Aggregate::main);
+      tools.put("TruthTableCreator", TruthTableCreator::main);
+
+      locks = new HashMap<String, Object>();
+      locks.put("BMP2OneByte", new Object());
+      locks.put("ToIntArray", new Object());
+      locks.put("Aggregate", new Object());
+
+      workers = Executors.newFixedThreadPool(Math.max(1, numWorkers));
+      socket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+
+      console = System.out;
+      jobOutput = new ThreadLocal<ByteArrayOutputStream>();
+      System.setOut(new PrintStream(new JobRouter(), true));
+
+      console.println("DAEMON: accepting jobs on localhost:" + port + " with " + Math.max(1, numWorkers) + " workers");
+   } // public NetworkDaemon(int port, int numWorkers) throws IOException
+
+/*
+ * accepts clients until the daemon is shut down, handling each client on its own thread.
+ */
+   public void serve()
+   {
+      running = true;
+
+      while (running)
+      {
+         try
+         {
+            Socket client = socket.accept();
+            new Thread(() -> handle(client), "daemon-client").start();
+         }
+         catch (IOException e) // the socket is closed when the daemon shuts down.
+         {
+            if (running)
+            {
+               console.println("DAEMON: cannot accept a client: " + e.getMessage());
+            }
+         }
+      } // while (running)
+
+      workers.shutdown();
+      System.setOut(console);
+      console.println("DAEMON: shut down (queued jobs still finish)");
+   } // public void serve()
+
+/*
+ * stops accepting clients.
+ */
+   public void shutdown()
+   {
+      running = false;
+
+      try
+      {
+         socket.close();
+      }
+      catch (IOException e)
+      {
+         console.println("DAEMON: " + e.getMessage());
+      }
+   } // public void shutdown()
+
+/*
+ * reads jobs from the given client (one per line) and runs them in order: a background job (ending in &) is queued as soon
+ * as it is read, any other job only once every earlier job has finished, and the next line is read once it has finished
+ * too. Once the client is done sending, sends back the output of every job in the order the jobs were sent.
+ */
+   public void handle(Socket client)
+   {
+      ArrayList<Future<String>> jobs = new ArrayList<Future<String>>(); // every job of this client, in order.
+      String line;
+      String[] job;
+      boolean background; // true if the job ends in & and runs alongside the others.
+
+      try (Socket c = client;
+           BufferedReader in = new BufferedReader(new InputStreamReader(c.getInputStream(), StandardCharsets.UTF_8));
+           PrintWriter out = new PrintWriter(c.getOutputStream(), true, StandardCharsets.UTF_8))
+      {
+         line = in.readLine();
+
+         while (line != null)
+         {
+            job = parseJob(line);
+            background = job.length > 0 && job[job.length-1].equals(BACKGROUND);
+
+            if (background)
+            {
+               job = Arrays.copyOf(job, job.length-1);
+            }
+
+            if (job.length == 1 && job[0].equals(SHUTDOWN))
+            {
+               shutdown();
+            }
+            else if (job.length > 0)
+            {
+               final String[] curJob = job; // job for the lambda below.
+
+               if (!background)
+               {
+                  awaitAll(jobs); // the job may read what the earlier jobs write.
+               }
+
+               jobs.add(workers.submit(() -> runJob(curJob)));
+
+               if (!background)
+               {
+                  awaitAll(jobs); // the next line may read what this job writes.
+               }
+            } // else if (job.length > 0)
+
+            line = in.readLine();
+         } // while (line != null)
+
+         for (Future<String> curJob : jobs)
+         {
+            try
+            {
+               out.print(curJob.get());
+            }
+            catch (InterruptedException | ExecutionException e)
+            {
+               out.println(FAILED + ": " + e);
+            }
+            out.flush();
+         } // for (Future<String> curJob : jobs)
+      } // try (Socket c = client; ...
+      catch (IOException e)
+      {
+         console.println("DAEMON: lost a client: " + e.getMessage());
+      }
+   } // public void handle(Socket client)
+
+/*
+ * runs the given job (job name followed by its arguments) on the current thread and returns everything it printed,
+ * followed by the line saying whether it finished or failed.
+ */
+   public String runJob(String[] job)
+   {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      String[] args = Arrays.copyOfRange(job, 1, job.length);
+      Tool tool = tools.get(job[0]);
+      Object lock = locks.get(job[0]);
+      String status;
+
+      jobOutput.set(out);
+
+      try
+      {
+         if (tool == null)
+         {
+            status = FAILED + " " + String.join(" ", job) + ": unknown job";
+         }
+         else
+         {
+            if (lock != null)
+            {
+               synchronized (lock) // the tool keeps its state in static fields, only one job at a time.
+               {
+                  tool.main(args);
+               }
+            }
+            else
+            {
+               tool.main(args);
+            }
+
+            status = DONE + " " + String.join(" ", job);
+         } // else
+      } // try
+      catch (Exception e) // a failed job fails alone, the worker goes on with the next job.
+      {
+         status = FAILED + " " + String.join(" ", job) + ": " + e;
+      }
+      finally
+      {
+         System.out.flush();
+         jobOutput.remove();
+      }
+
+      return new String(out.toByteArray(), StandardCharsets.UTF_8) + status + "\n";
+   } // public String runJob(String[] job)
+
+/*
+ * splits the given command line into the job name and its arguments, leaving out a leading "java" and the JVM options
+ * after it. A trailing "&" is kept as the last word (see handle). Returns an empty array for a blank line.
+ */
+   public static String[] parseJob(String line)
+   {
+      ArrayList<String> tokens = new ArrayList<String>(Arrays.asList(line.trim().split("\\s+")));
+
+      if (!tokens.isEmpty() && tokens.get(0).equals(JAVA))
+      {
+         tokens.remove(0);
+
+         while (!tokens.isEmpty() && tokens.get(0).startsWith("-")) // JVM options.
+         {
+            tokens.remove(0);
+         }
+      }
+
+      tokens.removeIf(String::isEmpty);
+
+      return tokens.toArray(new String[0]);
+   } // public static String[] parseJob(String line)
+
+/*
+ * waits for every given job to finish. A job that failed is reported with its output, so its failure is ignored here.
+ */
+   private static void awaitAll(ArrayList<Future<String>> jobs)
+   {
+      for (Future<String> job : jobs)
+      {
+         try
+         {
+            job.get();
+         }
+         catch (ExecutionException e)
+         {
+            // sent back with the output of the job.
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+            return;
+         }
+      } // for (Future<String> job : jobs)
+   } // private static void awaitAll(ArrayList<Future<String>> jobs)
+
+/*
+ * sends every line of the given job file to the daemon on the given port and prints what the daemon sends back.
+ */
+   public static void submit(String jobfile, int port) throws IOException
+   {
+      String line;
+
+      try (Socket s = new Socket(InetAddress.getLoopbackAddress(), port);
+           BufferedReader jobs = new BufferedReader(new FileReader(jobfile));
+           BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+           PrintWriter out = new PrintWriter(s.getOutputStream(), true, StandardCharsets.UTF_8))
+      {
+         line = jobs.readLine();
+
+         while (line != null)
+         {
+            out.println(line);
+            line = jobs.readLine();
+         }
+
+         s.shutdownOutput(); // tells the daemon that every job was sent.
+
+         line = in.readLine();
+
+         while (line != null)
+         {
+            System.out.println(line);
+            line = in.readLine();
+         }
+      } // try (Socket s = ...
+   } // public static void submit(String jobfile, int port) throws IOException
+} // public class NetworkDaemon
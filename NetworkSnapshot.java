@@ -0,0 +1,204 @@
+import java.io.IOException;
+
+/*
+ * Author: Luke Zeng
+ * Date of Creation: 10/19/2026
+ *
+ * Description: Immutable copy of the weights of a network, together with its configuration (nodes on each activation
+ *              layer) and its activation function. Runs the network forward (no training) on one set of inputs or on
+ *              a whole batch of inputs at once. Nothing in a snapshot changes after it is made, so any number of
+ *              threads can run the same snapshot at the same time.
+ *
+ *              Running a batch goes through each weight row once for the whole batch instead of once per input, which
+ *              is what makes batching requests worth it. The dot products are summed in the same order as
+ *              ABCDEFGHIJKLMN.theta(), so a snapshot gives exactly the outputs of the network it was copied from.
+ *
+ * Table of Contents:
+ *    public NetworkSnapshot(double[][][] w, int[] numNodes, ActivationFunction f)
+ *    public static NetworkSnapshot load(String weightsFile, int[] numNodes, ActivationFunction f) throws IOException
+ *    public static ActivationFunction activation(String name)
+ *    public double[] run(double[] inputs)
+ *    public double[][] runBatch(double[][] batch)
+ *    public double[][][] weights()
+ *    public int numInputs()
+ *    public int numOutputs()
+ *    public long bytes()
+ */
+
+public class NetworkSnapshot
+{
+   private final double[][][] wAll;    // copy of the weights of the network.
+   private final int[] numNodes;       // number of nodes on each activation layer.
+   private final int numLayers;        // number of weight layers.
+   private final ActivationFunction f; // activation function f(x).
+
+/*
+ * Makes a snapshot of the given weights (the weights are copied, so the network can keep training).
+ */
+   public NetworkSnapshot(double[][][] w, int[] numNodes, ActivationFunction f)
+   {
+      this.numNodes = numNodes.clone();
+      this.numLayers = numNodes.length-1;
+      this.f = f;
+
+      wAll = new double[numLayers][][];
+
+      for (int n = 0; n < numLayers; n++)
+      {
+         wAll[n] = new double[numNodes[n]][];
+
+         for (int k = 0; k < numNodes[n]; k++)
+         {
+            wAll[n][k] = w[n][k].clone();
+         }
+      }
+   } // public NetworkSnapshot(double[][][] w, int[] numNodes, ActivationFunction f)
+
+/*
+ * Loads a snapshot from a weights file written by FileHandler.writeWeights for the given network configuration.
+ * Throws an IOException if the file is missing or doesn't match the configuration.
+ */
+   public static NetworkSnapshot load(String weightsFile, int[] numNodes, ActivationFunction f) throws IOException
+   {
+      int numLayers = numNodes.length-1;
+      double[][][] w = new double[numLayers][][];
+      FileHandler fh = new FileHandler(weightsFile);
+
+      for (int n = 0; n < numLayers; n++)
+      {
+         w[n] = new double[numNodes[n]][numNodes[n+1]];
+      }
+
+      if (!fh.loadWeights(w, numNodes, numLayers))
+      {
+         throw new IOException("weights file " + weightsFile + " does not match the network configuration");
+      }
+
+      return new NetworkSnapshot(w, numNodes, f);
+   } // public static NetworkSnapshot load(String weightsFile, int[] numNodes, ActivationFunction f) throws IOException
+
+/*
+ * returns the activation function with the given (lowercase) name, a sigmoid if the name is unknown.
+ */
+   public static ActivationFunction activation(String name)
+   {
+      ActivationFunction ret;
+
+      switch (name == null ? "" : name)
+      {
+         case "linear":
+            ret = new Fx();
+            break;
+         case "tangent":
+            ret = new HypTan();
+            break;
+         default:
+            ret = new Sigmoid();
+      }
+
+      return ret;
+   } // public static ActivationFunction activation(String name)
+
+/*
+ * runs the network on the given inputs and returns the output activations.
+ */
+   public double[] run(double[] inputs)
+   {
+      return runBatch(new double[][] {inputs})[0];
+   }
+
+/*
+ * runs the network on every row of the given batch and returns one row of output activations for each.
+ */
+   public double[][] runBatch(double[][] batch)
+   {
+      int batchSize = batch.length;
+      double[][] prev = batch; // activations of the previous layer for the whole batch.
+      double[][] next;         // activations being calculated for the whole batch.
+      double[] wk;             // weights leaving node k of the previous layer.
+      double ak;
+
+      for (int n = 0; n < numLayers; n++)
+      {
+         next = new double[batchSize][numNodes[n+1]];
+
+         for (int k = 0; k < numNodes[n]; k++) // each weight row is read once for the whole batch.
+         {
+            wk = wAll[n][k];
+
+            for (int b = 0; b < batchSize; b++)
+            {
+               ak = prev[b][k];
+
+               for (int j = 0; j < numNodes[n+1]; j++)
+               {
+                  next[b][j] += ak * wk[j]; // theta for node j, summed over k in order.
+               }
+            }
+         } // for (int k = 0; k < numNodes[n]; k++)
+
+         for (int b = 0; b < batchSize; b++) // apply the activation function to the thetas.
+         {
+            for (int j = 0; j < numNodes[n+1]; j++)
+            {
+               next[b][j] = f.funct(next[b][j]);
+            }
+         }
+
+         prev = next;
+      } // for (int n = 0; n < numLayers; n++)
+
+      return prev;
+   } // public double[][] runBatch(double[][] batch)
+
+/*
+ * returns a copy of the weights of the snapshot (for a network to take them over).
+ */
+   public double[][][] weights()
+   {
+      double[][][] ret = new double[numLayers][][];
+
+      for (int n = 0; n < numLayers; n++)
+      {
+         ret[n] = new double[numNodes[n]][];
+
+         for (int k = 0; k < numNodes[n]; k++)
+         {
+            ret[n][k] = wAll[n][k].clone();
+         }
+      }
+
+      return ret;
+   } // public double[][][] weights()
+
+/*
+ * returns the number of input nodes.
+ */
+   public int numInputs()
+   {
+      return numNodes[0];
+   }
+
+/*
+ * returns the number of output nodes.
+ */
+   public int numOutputs()
+   {
+      return numNodes[numLayers];
+   }
+
+/*
+ * returns the number of bytes taken up by the weights of the snapshot.
+ */
+   public long bytes()
+   {
+      long weights = 0;
+
+      for (int n = 0; n < numLayers; n++)
+      {
+         weights += (long) numNodes[n] * numNodes[n+1];
+      }
+
+      return weights * Double.BYTES;
+   } // public long bytes()
+} // public class NetworkSnapshot
@@ -21,6 +21,9 @@
  *  getXcom() - return the x coordinate of the center of mass (method may need to call calcCOM() to determine the value). Zero indexed.
  *  getYcom() - return the y coordinate of the center of mass (method may need to call calcCOM() to determine the value). Zero indexed.
  *  calcCOM() - calculates the x and y center of mass values.
+ *  forRowBlocks(int, int, RowBlock)         - do some work on every block of rows of an image, on all cores for large images.
+ *  reduceRows(int, int, int, RowReduction) - add up sums over the rows of an image in blocks, on all cores for large images.
+ *  reduceRowBlocks(int, int, int, RowReduction) - the sums of each block of rows of reduceRows(), before they are added together.
  * 
  *  offset(int, int)         - offset the image array by the specified x,y amount
  *
@@ -32,10 +35,20 @@
  *  edgeDetect(int, int)     - Find edges in the image array based on a simple threshold count criteria.
  *  crop(int, int, int, int) - crop the image array given the x,y upper left and x,y lower left coordinates.
  *  scale(int, int)          - scale the image array to an array with the new specified width and height.
+ *  boxScale(int, int)       - scale the image array down by averaging each color over the source pels of every new pel.
+ *  boxStart(int, int, int)  - first source row (or column) of a box when scaling down.
+ *
+ *  buildIntegralImages()    - build the summed-area tables used by the region methods below.
+ *  regionMass(int, int, int, int) - return the sum of the pels in a rectangle in constant time.
+ *  regionCOM(int, int, int, int)  - return the center of mass of a rectangle in constant time.
+ *
+ *  buildPyramid(int)        - build the mip-map pyramid of the image, each level half the size of the one before.
+ *  coarseCOM(int, int, int, int, int) - estimate the center of mass on a pyramid level, refined at full size around the estimate.
  *
  *  dump() - dumps the pelArray as hex values to the console
  *
  *  grayScalePel(int)     - Takes a single RGB pel and returns a gray scale pel value
+ *  grayLevel(int)        - Takes a single RGB pel and returns its gray scale color (0-255) from the gray scale lookup tables
  *  grayScaleImage()      - Converts all the pels in an image array to gray scale
  *  onesComplimentImage() - Take the ones complement of all the pels in an image array
  *  oneColorPel(int, int) - Masks off a single color in a single pel
@@ -52,8 +65,21 @@
  * November 17, 2023 - Added the getWidth() and getHeight() methods
  * December 6, 2023  - Added forceMin() and forceMax()
  * April 24, 2024    - Added offsetColors(), min() and max() and fixed a bug in onesComplimentImage(). Agul G. pointed out that I neglected to mask off the most significant byte.
+ * October 19, 2026  - Added the summed-area tables (buildIntegralImages(), regionMass(), regionCOM()). scale() now averages (box filters) when
+ *                     scaling down in both directions instead of sampling one source pel per new pel.
+ * October 19, 2026  - Added reduceRows(). calcCOM() and edgeDetect() now sum blocks of rows in parallel.
+ * October 19, 2026  - Added buildPyramid() and coarseCOM().
+ * October 19, 2026  - Added forRowBlocks(). The per pel methods (grayScaleImage() through offsetColors()) now run on all cores.
+ * October 19, 2026  - Added grayLevel(). grayScalePel() now looks the color weights up in tables instead of multiplying doubles.
+ * October 19, 2026  - The rotations now work on blocks of BLOCKROWS rows, flipHorizontal() copies whole rows and flipVertical() reverses
+ *                     each row once. All four run on blocks of rows in parallel.
+ * October 19, 2026  - Added reduceRowBlocks() so PelBands can add up the blocks of an image one band at a time.
  */
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * @author Eric R. Nelson
  * February 25, 2009
@@ -86,6 +112,33 @@ public class PelArray
    public static final int BLACK = 0x00000000;
    public static final int WHITE = 0x00FFFFFF;
 
+/*
+** Constants for the operations that work on blocks of rows (see forRowBlocks())
+*/
+   public static final int BLOCKROWS    = 64;        // Rows handled together by one block
+   public static final int PARALLELPELS = 1 << 18;   // Images with fewer pels than this are handled on the calling thread
+
+/*
+** Gray scale lookup tables (see grayLevel()). Entry c of a table is the weight of the color (300, 589 or 110 for 0.3, 0.589 and 0.11)
+** times c times GRAYSCALE, a fixed point 1/1000 with 32 fraction bits, so adding the three entries of a pel gives lum = 0.3R + 0.589G + 0.11B
+** in the high 32 bits. The red table also holds the 0.5 that rounds to the nearest color.
+*/
+   public static final long GRAYSCALE = (1L << 32) / 1000 + 1;  // 2^32 / 1000 rounded up
+   public static final long GRAYTIE   = 1L << 22;               // Fractions below this are an exact half (see grayLevel())
+   private static final long[] RED_GRAY   = new long[256];
+   private static final long[] GREEN_GRAY = new long[256];
+   private static final long[] BLUE_GRAY  = new long[256];
+
+   static
+      {
+      for (int c = 0; c < 256; ++c)
+         {
+         RED_GRAY[c]   = (300L * c + 500) * GRAYSCALE;
+         GREEN_GRAY[c] = 589L * c * GRAYSCALE;
+         BLUE_GRAY[c]  = 110L * c * GRAYSCALE;
+         }
+      }
+
 /*
 ** Private Member Variables
 */
@@ -93,6 +146,12 @@ public class PelArray
    private boolean comKnownFlag;       // If this flag is true then we have a center of mass value.
    private int xComColumnVal;          // x (column) center of mass value
    private int yComRowVal;             // y (row) center of mass value
+
+   private long[] massTable;           // summed-area tables of the pels, the column moments and the row moments (null until built)
+   private long[] xMomentTable;
+   private long[] yMomentTable;
+
+   private PelArray[] pyramid;         // mip-map levels, pyramid[0] is this image (null until built)
     
 /*
  * If no array is passed to the constructor, then create a 1x1 as a place holder (prevents exceptions)
@@ -117,6 +176,10 @@ public class PelArray
       {
       arrayOfPels = array;
       comKnownFlag = false;
+      massTable = null;                // the summed-area tables belong to the old array
+      xMomentTable = null;
+      yMomentTable = null;
+      pyramid = null;                  // and so does the pyramid
       return arrayOfPels;
       }
     
@@ -146,24 +209,38 @@ public class PelArray
  * This method is called by the getXcom() and getYcom() methods
  * if the com values are not known. This method sets the comKnownFlag to true.
  * If the method returns false then something weird happened.
+ * The sums are added up by reduceRows(), so large images are summed on all cores and the result never depends on how many.
  */
    boolean calcCOM()
       {
-      int iRow, iCol;
-      double fRowCom = 0.0, fColCom = 0.0, fMass = 0.0;
+      double fRowCom, fColCom, fMass;
+      double[] sums;
      
       int iRowCount = arrayOfPels.length;
       int iColCount = arrayOfPels[0].length;
-        
-      for (iRow = 0;  iRow < iRowCount; ++iRow)
+
+      sums = reduceRows(iRowCount, iColCount, 3, (firstRow, endRow, blockSums) ->
          {
-         for (iCol = 0; iCol < iColCount; ++iCol)
+         double colCom = 0.0, rowCom = 0.0, mass = 0.0;
+
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
             {
-            fColCom += ((double)iCol) * ((double)arrayOfPels[iRow][iCol]);
-            fRowCom += ((double)iRow) * ((double)arrayOfPels[iRow][iCol]);
-            fMass += (double)arrayOfPels[iRow][iCol];
+            for (int iCol = 0; iCol < iColCount; ++iCol)
+               {
+               colCom += ((double)iCol) * ((double)arrayOfPels[iRow][iCol]);
+               rowCom += ((double)iRow) * ((double)arrayOfPels[iRow][iCol]);
+               mass += (double)arrayOfPels[iRow][iCol];
+               }
             }
-          }
+
+         blockSums[0] += colCom;
+         blockSums[1] += rowCom;
+         blockSums[2] += mass;
+         });
+
+      fColCom = sums[0];
+      fRowCom = sums[1];
+      fMass = sums[2];
 
       comKnownFlag = true;
 
@@ -186,6 +263,120 @@ public class PelArray
         
       return comKnownFlag;
       } // boolean calcCOM()
+
+/*
+ * Does the work of forRowBlocks() on one block of rows: the rows from firstRow up to, but not including, endRow.
+ * It is called from several threads at once for a large image, so it must only change what belongs to its own rows.
+ */
+   interface RowBlock
+      {
+      void doRows(int firstRow, int endRow);
+      }
+
+/*
+ * Split the rows of an image of rowCount rows and colCount columns into blocks of BLOCKROWS rows and call rows.doRows() once for
+ * every block. The blocks are done on all cores (the common fork join pool) when the image has at least PARALLELPELS pels and
+ * one after the other on the calling thread otherwise. Returns once every block is done.
+ */
+   static void forRowBlocks(int rowCount, int colCount, RowBlock rows)
+      {
+      int block;
+
+      int blockCount = (rowCount + BLOCKROWS - 1) / BLOCKROWS;
+
+      if ((long)rowCount * colCount >= PARALLELPELS)
+         {
+         ForkJoinPool.commonPool().invoke(new RowBlocks(rows, rowCount, 0, blockCount));
+         }
+      else
+         {
+         for (block = 0; block < blockCount; ++block) rows.doRows(block * BLOCKROWS, Math.min((block + 1) * BLOCKROWS, rowCount));
+         }
+      } // static void forRowBlocks(int rowCount, int colCount, RowBlock rows)
+
+/*
+ * The fork join task of forRowBlocks(): does the blocks from firstBlock up to, but not including, endBlock by splitting them
+ * in half until one block is left.
+ */
+   private static class RowBlocks extends RecursiveAction
+      {
+      private static final long serialVersionUID = 1L; // RecursiveAction is Serializable; row blocks never are serialized.
+
+      final RowBlock rows;
+      final int rowCount;
+      final int firstBlock;
+      final int endBlock;
+
+      RowBlocks(RowBlock rows, int rowCount, int firstBlock, int endBlock)
+         {
+         this.rows = rows;
+         this.rowCount = rowCount;
+         this.firstBlock = firstBlock;
+         this.endBlock = endBlock;
+         }
+
+      @Override
+      protected void compute()
+         {
+         int middle;
+
+         if (endBlock - firstBlock > 1)
+            {
+            middle = (firstBlock + endBlock) >>> 1;
+            invokeAll(new RowBlocks(rows, rowCount, firstBlock, middle), new RowBlocks(rows, rowCount, middle, endBlock));
+            }
+         else if (endBlock > firstBlock)
+            {
+            rows.doRows(firstBlock * BLOCKROWS, Math.min((firstBlock + 1) * BLOCKROWS, rowCount));
+            }
+         } // protected void compute()
+      } // private static class RowBlocks extends RecursiveAction
+
+/*
+ * Adds up the sums of some rows of an image for reduceRows(). addRows() adds the sums of the rows from firstRow up to, but not
+ * including, endRow to blockSums. It is called once for each block of rows, from several threads at once for a large image.
+ */
+   interface RowReduction
+      {
+      void addRows(int firstRow, int endRow, double[] blockSums);
+      }
+
+/*
+ * Add up sumCount sums over the rows of an image of rowCount rows and colCount columns.
+ * Each block of rows of forRowBlocks() is summed into its own array of sums, starting from zero, and the block sums are then
+ * added together in block order. The same additions happen in the same order whether the blocks ran on one thread or on
+ * many, so the result is the same to the last bit no matter how many threads did the work.
+ * Returns the sums.
+ */
+   static double[] reduceRows(int rowCount, int colCount, int sumCount, RowReduction rows)
+      {
+      int block, i;
+
+      double[][] blockSums = reduceRowBlocks(rowCount, colCount, sumCount, rows);
+      double[] sums = new double[sumCount];
+
+      for (block = 0; block < blockSums.length; ++block)
+         {
+         for (i = 0; i < sumCount; ++i) sums[i] += blockSums[block][i];
+         }
+
+      return sums;
+      } // static double[] reduceRows(int rowCount, int colCount, int sumCount, RowReduction rows)
+
+/*
+ * Sum the blocks of rows the way reduceRows() does, but return the sums of each block (in block order) instead of adding them
+ * together. Adding these up in order over the bands of an image, bands that start on a multiple of BLOCKROWS, gives the same
+ * sums reduceRows() gives for the whole image.
+ */
+   static double[][] reduceRowBlocks(int rowCount, int colCount, int sumCount, RowReduction rows)
+      {
+      int blockCount = (rowCount + BLOCKROWS - 1) / BLOCKROWS;
+      double[][] blockSums = new double[blockCount][sumCount];
+
+      forRowBlocks(rowCount, colCount, (firstRow, endRow) -> rows.addRows(firstRow, endRow, blockSums[firstRow / BLOCKROWS]));
+
+      return blockSums;
+      } // static double[][] reduceRowBlocks(int rowCount, int colCount, int sumCount, RowReduction rows)
     
 /*
  * Return the x (column) value of the center of mass of the image. Recalculates the com if needed first.     
@@ -239,116 +430,103 @@ public class PelArray
 
 /*
  * Rotate image 90 degrees counter clockwise
+ * A column of the image becomes a row of the target, so going along a source row would write to a different target row (and
+ * so a different part of memory) for every pel. Instead each block of BLOCKROWS rows (see forRowBlocks()) is read column by
+ * column: the part of a column in the block goes into consecutive pels of one target row, and the block's cache lines of the
+ * source rows stay in the cache from one column to the next.
  * Returns a new PelArray object    
  */
   PelArray rotateCCW90()
       {
-      int iRow, iCol;
-      int iNewRow, iNewCol;
-        
       int iRowCount = arrayOfPels.length;
       int iColCount = arrayOfPels[0].length;
 
       int[][] targetArray = new int[iColCount][iRowCount]; // Columns become rows with rotation
 
-      for (iRow = 0;  iRow < iRowCount; ++iRow)
+      forRowBlocks(iRowCount, iColCount, (firstRow, endRow) ->
          {
-         for (iCol = 0; iCol < iColCount; ++iCol)
+         for (int iCol = 0; iCol < iColCount; ++iCol)
             {
-            iNewRow = iColCount - iCol - 1;
-            iNewCol = iRow;
-            targetArray[iNewRow][iNewCol] = arrayOfPels[iRow][iCol];
+            int[] targetRow = targetArray[iColCount - iCol - 1];
+
+            for (int iRow = firstRow; iRow < endRow; ++iRow) targetRow[iRow] = arrayOfPels[iRow][iCol];
             }
-         }
+         });
 
       return new PelArray(targetArray);
       } // PelArray rotateCCW90()
 
 /*
  * Rotate image 90 degrees clockwise
+ * Done in blocks of rows the same way as rotateCCW90().
  * Returns a new PelArray object    
  */
   PelArray rotateCW90()
       {
-      int iRow, iCol;
-      int iNewRow, iNewCol;
-        
       int iRowCount = arrayOfPels.length;
       int iColCount = arrayOfPels[0].length;
 
       int[][] targetArray = new int[iColCount][iRowCount]; // Columns become rows with rotation
 
-      for (iRow = 0;  iRow < iRowCount; ++iRow)
+      forRowBlocks(iRowCount, iColCount, (firstRow, endRow) ->
          {
-         for (iCol = 0; iCol < iColCount; ++iCol)
+         for (int iCol = 0; iCol < iColCount; ++iCol)
             {
-            iNewRow = iCol;
-            iNewCol = iRowCount  - iRow - 1;
-            targetArray[iNewRow][iNewCol] = arrayOfPels[iRow][iCol];
+            int[] targetRow = targetArray[iCol];
+
+            for (int iRow = firstRow; iRow < endRow; ++iRow) targetRow[iRowCount - iRow - 1] = arrayOfPels[iRow][iCol];
             }
-         }
+         });
 
       return new PelArray(targetArray);
       } // PelArray rotateCW90()
 
 /*
  * Flip the image about the horizontal central line (top becomes bottom)
+ * Every row stays the same, it just moves, so whole rows are copied.
  * Returns a new PelArray object    
  */
   PelArray flipHorizontal()
       {
-      int iRow, iCol;
-      int iNewRow, iNewCol;
-        
       int iRowCount = arrayOfPels.length;
       int iColCount = arrayOfPels[0].length;
 
       int lastRowIndex = iRowCount - 1; // The array index value to the last row element
-      int halfWay = iRowCount / 2 + 1;  // We stop swapping elements halfway through, so let's make the loop obvious
 
       int[][] targetArray = new int[iRowCount][iColCount];
 
-      for (iRow = 0;  iRow < halfWay; ++iRow)
+      forRowBlocks(iRowCount, iColCount, (firstRow, endRow) ->
          {
-         for (iCol = 0; iCol < iColCount; ++iCol)
-            {
-            iNewRow = lastRowIndex - iRow;
-            iNewCol = iCol;
-            targetArray[iNewRow][iNewCol] = arrayOfPels[iRow][iCol];    // Top becomes bottom
-            targetArray[iRow][iNewCol]    = arrayOfPels[iNewRow][iCol]; // Bottom becomes top
-            }
-         }
+         for (int iRow = firstRow; iRow < endRow; ++iRow) System.arraycopy(arrayOfPels[lastRowIndex - iRow], 0, targetArray[iRow], 0, iColCount);
+         });
 
       return new PelArray(targetArray);
       } // PelArray flipHorizontal()
 
 /*
  * Flip the image about the vertical central line (left becomes right)
+ * Each row is copied once in reverse.
  * Returns a new PelArray object    
  */
   PelArray flipVertical()
       {
-      int iRow, iCol;
-      int iNewRow, iNewCol;
-        
       int iRowCount = arrayOfPels.length;
       int iColCount = arrayOfPels[0].length;
 
       int lastColIndex = iColCount - 1; // The array index value to the last column element
-      int halfWay = iColCount / 2 + 1;  // We stop swapping elements halfway through, so let's make the loop obvious
 
       int[][] targetArray = new int[iRowCount][iColCount];
 
-      for (iRow = 0;  iRow < iRowCount; ++iRow)
+      forRowBlocks(iRowCount, iColCount, (firstRow, endRow) ->
          {
-         for (iCol = 0; iCol < halfWay; ++iCol)
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
             {
-            iNewRow = iRow;
-            iNewCol = lastColIndex - iCol;
-            targetArray[iNewRow][iNewCol] = arrayOfPels[iRow][iCol];      // Left becomes right
-            targetArray[iNewRow][iCol]    = arrayOfPels[iRow][iNewCol];   // Right becomes left
+            int[] sourceRow = arrayOfPels[iRow];
+            int[] targetRow = targetArray[iRow];
+
+            for (int iCol = 0; iCol < iColCount; ++iCol) targetRow[lastColIndex - iCol] = sourceRow[iCol]; // Left becomes right
             }
-         }
+         });
 
       return new PelArray(targetArray);
       } // PelArray flipVertical()
@@ -358,6 +536,8 @@ public class PelArray
  * If the top edge is not found, the bottom edge is not searched. The same goes for left and right.
  * The edges array is intended to be used with the RIGHT_EDGE, LEFT_EDGE, TOP_EDGE, BOTTOM_EDGE constants.
  * break statements are used within the for loops because this implementation is cleaner than using while loops.
+ * The pels above the threshold are counted for every row and every column first, in one pass with reduceRows(), and the
+ * edges are then found by adding up those counts, so the edges are the same as counting pel by pel.
  */
    int[] edgeDetect(int threshold, int minCount)
       {
@@ -368,26 +548,47 @@ public class PelArray
       int iRowCount = arrayOfPels.length;
       int iColCount = arrayOfPels[0].length;
 
+      int[] rowCounts = new int[iRowCount]; // pels at or above the threshold in each row
+      double[] colCounts;                   // and in each column
+
 /*
 ** Initialize the returned array of edges.
 */
       for (int i = 0; i < edges.length; ++i) edges[i] = -1; // -1 is not a valid edge. It is used as a flag.
+
+/*
+** Count the pels at or above the threshold. Every block of rows fills in the counts of its own rows and adds its column counts to its block sums.
+*/
+      colCounts = reduceRows(iRowCount, iColCount, iColCount, (firstRow, endRow, blockSums) ->
+         {
+         for (int r = firstRow; r < endRow; ++r)
+            {
+            int rowCount = 0;
+
+            for (int c = 0; c < iColCount; ++c)
+               {
+               if (arrayOfPels[r][c] >= threshold)
+                  {
+                  ++rowCount;
+                  ++blockSums[c];
+                  }
+               }
+
+            rowCounts[r] = rowCount;
+            }
+         });
         
 /*
 ** Start with the top row and go down
 */
       count = 0;
-TopRow:
       for (iRow = 0; iRow < iRowCount; ++iRow)
          {
-         for (iCol = 0; iCol < iColCount; ++iCol)
+         count += rowCounts[iRow];
+         if (count >= minCount)
             {
-            if (arrayOfPels[iRow][iCol] >= threshold) ++count;
-            if (count >= minCount)
-               {
-               edges[TOP_EDGE] = iRow;
-               break TopRow;
-               }
+            edges[TOP_EDGE] = iRow;
+            break;
             }
          } // for (iRow = 0; iRow < iRowCount; ++iRow)
 
@@ -397,17 +598,13 @@ TopRow:
       if (edges[TOP_EDGE] > -1)
          {
          count = 0;
-BottomRow:
          for (iRow = iRowCount - 1;  iRow >= 0; --iRow)
             {
-            for (iCol = 0; iCol < iColCount; ++iCol)
+            count += rowCounts[iRow];
+            if (count >= minCount)
                {
-               if (arrayOfPels[iRow][iCol] >= threshold) ++count;
-               if (count >= minCount)
-                  {
-                  edges[BOTTOM_EDGE] = iRow;
-                  break BottomRow;
-                  }
+               edges[BOTTOM_EDGE] = iRow;
+               break;
                }
             } // for (iRow = iRowCount - 1;  iRow >= 0; --iRow)
          } // if (edges[TOP_EDGE] > -1)
@@ -416,17 +613,13 @@ BottomRow:
 ** From left to right
 */
       count = 0;
-LeftColumn:
       for (iCol = 0; iCol < iColCount; ++iCol)
          {
-         for (iRow = 0;  iRow < iRowCount; ++iRow)
+         count += (int)colCounts[iCol];
+         if (count >= minCount)
             {
-            if (arrayOfPels[iRow][iCol] >= threshold) ++count;
-            if (count >= minCount)
-               {
-               edges[LEFT_EDGE] = iCol;
-               break LeftColumn;
-               }
+            edges[LEFT_EDGE] = iCol;
+            break;
             }
          } // for (iCol = 0; iCol < iColCount; ++iCol)
 
@@ -436,17 +629,13 @@ LeftColumn:
       if (edges[LEFT_EDGE] > -1)
          {
          count = 0;
-RightColumn:
          for (iCol = iColCount - 1; iCol >= 0 ; --iCol)
             {
-            for (iRow = 0;  iRow < iRowCount; ++iRow)
+            count += (int)colCounts[iCol];
+            if (count >= minCount)
                {
-               if (arrayOfPels[iRow][iCol] >= threshold) ++count;
-               if (count >= minCount)
-                  {
-                  edges[RIGHT_EDGE] = iCol;
-                  break RightColumn;
-                  }
+               edges[RIGHT_EDGE] = iCol;
+               break;
                }
             } // for (iCol = iColCount - 1; iCol >= 0 ; --iCol)
          } // if (edges[LEFT_EDGE] > -1)
@@ -493,6 +682,7 @@ RightColumn:
  * Scale the array of pels to a new size
  * We iterate over the target to get the location of the source pels. This technique prevents holes in a larger image.
  * We average the values going into each new pel so that we don't get a "last man wins all" result.
+ * When the image gets smaller in both directions every source pel goes into one new pel and boxScale() does the averaging.
  * Returns a new PelArray object    
  */
    PelArray scale(int newColumnWidth, int newRowHeight)
@@ -504,6 +694,9 @@ RightColumn:
       int iRowCount = arrayOfPels.length;
       int iColCount = arrayOfPels[0].length;
 
+      if ((newColumnWidth == 0) || (newRowHeight == 0)) return new PelArray(new int[newRowHeight][newColumnWidth]); // an empty image, as before boxScale()
+      if ((newColumnWidth <= iColCount) && (newRowHeight <= iRowCount)) return boxScale(newColumnWidth, newRowHeight);
+
       int[][] targetArray = new int[newRowHeight][newColumnWidth];
       double[][] sumArray = new double[newRowHeight][newColumnWidth];
       double[][] countArray = new double[newRowHeight][newColumnWidth];
@@ -538,6 +731,338 @@ RightColumn:
       return new PelArray(targetArray);
       } // PelArray scale(int newColumnWidth, int newRowHeight)
 
+/*
+ * Scale the array of pels down to a new size with a box filter. The source rows are split into newRowHeight boxes of
+ * consecutive rows (see boxStart()) and the columns into newColumnWidth boxes, so every source pel lands in exactly one new pel.
+ * Each color of a new pel is the average of that color over its box, rounded to the nearest value.
+ * The new size must not be larger than the old one in either direction.
+ * Returns a new PelArray object    
+ */
+   PelArray boxScale(int newColumnWidth, int newRowHeight)
+      {
+      int iRow, iCol, iNewRow, iNewCol;
+      int pel, count;
+
+      int iRowCount = arrayOfPels.length;
+      int iColCount = arrayOfPels[0].length;
+
+      int[][] targetArray = new int[newRowHeight][newColumnWidth];
+      int[] newCol = new int[iColCount];          // new column of each source column
+      int[] colsInBox = new int[newColumnWidth];  // source columns in each column of boxes
+      long[] redSum = new long[newColumnWidth];   // color sums of the boxes of the current new row
+      long[] greenSum = new long[newColumnWidth];
+      long[] blueSum = new long[newColumnWidth];
+
+      for (iNewCol = 0; iNewCol < newColumnWidth; ++iNewCol)
+         {
+         colsInBox[iNewCol] = boxStart(iNewCol + 1, iColCount, newColumnWidth) - boxStart(iNewCol, iColCount, newColumnWidth);
+         for (iCol = boxStart(iNewCol, iColCount, newColumnWidth); iCol < boxStart(iNewCol + 1, iColCount, newColumnWidth); ++iCol) newCol[iCol] = iNewCol;
+         }
+
+      for (iNewRow = 0; iNewRow < newRowHeight; ++iNewRow)
+         {
+         Arrays.fill(redSum, 0);
+         Arrays.fill(greenSum, 0);
+         Arrays.fill(blueSum, 0);
+
+         for (iRow = boxStart(iNewRow, iRowCount, newRowHeight); iRow < boxStart(iNewRow + 1, iRowCount, newRowHeight); ++iRow)
+            {
+            for (iCol = 0; iCol < iColCount; ++iCol)
+               {
+               pel = arrayOfPels[iRow][iCol];
+               redSum[newCol[iCol]]   += (pel & RED) >> 16;
+               greenSum[newCol[iCol]] += (pel & GREEN) >> 8;
+               blueSum[newCol[iCol]]  += pel & BLUE;
+               }
+            }
+
+         for (iNewCol = 0; iNewCol < newColumnWidth; ++iNewCol)
+            {
+            count = (boxStart(iNewRow + 1, iRowCount, newRowHeight) - boxStart(iNewRow, iRowCount, newRowHeight)) * colsInBox[iNewCol];
+            targetArray[iNewRow][iNewCol] = (boxAverage(redSum[iNewCol], count) << 16) | (boxAverage(greenSum[iNewCol], count) << 8) | boxAverage(blueSum[iNewCol], count);
+            }
+         } // for (iNewRow = 0; iNewRow < newRowHeight; ++iNewRow)
+
+      return new PelArray(targetArray);
+      } // PelArray boxScale(int newColumnWidth, int newRowHeight)
+
+/*
+ * Return the first of the sourceSize rows (or columns) that go into box number box when they are split into newSize boxes.
+ * Box box holds the rows from boxStart(box, ...) up to, but not including, boxStart(box + 1, ...); boxStart(newSize, ...) is sourceSize.
+ */
+   static int boxStart(int box, int sourceSize, int newSize)
+      {
+      return (int)(((long)box * sourceSize + newSize - 1) / newSize);
+      }
+
+/*
+ * Return the average of count color values that add up to sum, rounded to the nearest value (halves round up).
+ */
+   static int boxAverage(long sum, int count)
+      {
+      return (int)((2 * sum + count) / (2 * (long)count));
+      }
+
+/*
+ * Build the summed-area tables (integral images) of the pels and of their column and row moments (column or row times pel).
+ * Each table has one more row and one more column than the image and holds, for every (row, column), the sum over all the pels
+ * above and to the left of it, so the sum over any rectangle takes four lookups (see regionMass() and regionCOM()).
+ * The tables take 24 bytes per pel. They are dropped when the array of pels is replaced with setPelArray().
+ */
+   boolean buildIntegralImages()
+      {
+      int iRow, iCol;
+      long pel, rowMass, rowXMoment;
+      int above, here;
+
+      int iRowCount = arrayOfPels.length;
+      int iColCount = arrayOfPels[0].length;
+      int tableWidth = iColCount + 1;
+
+      massTable = new long[(iRowCount + 1) * tableWidth];
+      xMomentTable = new long[(iRowCount + 1) * tableWidth];
+      yMomentTable = new long[(iRowCount + 1) * tableWidth];
+
+      for (iRow = 0; iRow < iRowCount; ++iRow)
+         {
+         rowMass = 0;                        // sums over the current row up to the current column
+         rowXMoment = 0;
+         above = iRow * tableWidth + 1;      // table entries of the current column, one row up and on this row
+         here = above + tableWidth;
+
+         for (iCol = 0; iCol < iColCount; ++iCol)
+            {
+            pel = arrayOfPels[iRow][iCol];
+            rowMass += pel;
+            rowXMoment += iCol * pel;
+
+            massTable[here + iCol]    = massTable[above + iCol]    + rowMass;
+            xMomentTable[here + iCol] = xMomentTable[above + iCol] + rowXMoment;
+            yMomentTable[here + iCol] = yMomentTable[above + iCol] + iRow * rowMass;
+            }
+         } // for (iRow = 0; iRow < iRowCount; ++iRow)
+
+      return true;
+      } // boolean buildIntegralImages()
+
+/*
+ * Return the sum over the given rectangle (inclusive, clipped to the image) of the given summed-area table.
+ */
+   private long regionSum(long[] table, int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+      {
+      int tableWidth = arrayOfPels[0].length + 1;
+
+      int left   = max(xUpperLeft, 0);
+      int top    = max(yUpperLeft, 0);
+      int right  = min(xLowerRight, arrayOfPels[0].length - 1) + 1; // one past the rectangle in the table
+      int bottom = min(yLowerRight, arrayOfPels.length - 1) + 1;
+
+      if ((left >= right) || (top >= bottom)) return 0;
+
+      return table[bottom * tableWidth + right] - table[top * tableWidth + right] - table[bottom * tableWidth + left] + table[top * tableWidth + left];
+      }
+
+/*
+ * Return the sum of the pels in the given rectangle (inclusive, x is columns and y is rows). Parts outside the image count as 0.
+ * Builds the summed-area tables first if needed.
+ */
+   long regionMass(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+      {
+      if (massTable == null) buildIntegralImages();
+
+      return regionSum(massTable, xUpperLeft, yUpperLeft, xLowerRight, yLowerRight);
+      }
+
+/*
+ * Return the center of mass {x, y} (in the coordinates of this image) of the pels in the given rectangle (inclusive, x is columns
+ * and y is rows), which is the center of mass of crop() of the rectangle moved back by the upper left corner. If all the pels are
+ * zero the center of the rectangle is returned. Returns null if the mass is negative. The sums are exact, so the result can
+ * differ from calcCOM() (which adds up doubles) when the center of mass is within rounding of half way between two pels.
+ * Builds the summed-area tables first if needed.
+ */
+   int[] regionCOM(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+      {
+      long mass = regionMass(xUpperLeft, yUpperLeft, xLowerRight, yLowerRight);
+      int[] com = new int[2];
+
+      if (mass > 0)
+         {
+         com[0] = (int)Math.round((double)regionSum(xMomentTable, xUpperLeft, yUpperLeft, xLowerRight, yLowerRight) / (double)mass);
+         com[1] = (int)Math.round((double)regionSum(yMomentTable, xUpperLeft, yUpperLeft, xLowerRight, yLowerRight) / (double)mass);
+         }
+      else if (mass == 0)
+         {
+         com[0] = xUpperLeft + (xLowerRight - xUpperLeft + 1) / 2;
+         com[1] = yUpperLeft + (yLowerRight - yUpperLeft + 1) / 2;
+         }
+      else
+         {
+         com = null;
+         }
+
+      return com;
+      } // int[] regionCOM(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+
+/*
+ * Build the mip-map pyramid of the image down to the given level and return it. Level 0 is this image and every level
+ * after it is the one before box scaled to half its width and height (rounded up), so each pel of level k is the average
+ * of a square of 2^k by 2^k pels of this image (smaller on the right and bottom edges when the size isn't a power of two).
+ * Levels already built are kept, so asking for a deeper pyramid only builds the new levels. The pyramid is dropped when
+ * the array of pels is replaced with setPelArray().
+ */
+   PelArray[] buildPyramid(int levels)
+      {
+      int level;
+      PelArray previous;
+      PelArray[] newPyramid;
+
+      if ((pyramid == null) || (pyramid.length <= levels))
+         {
+         newPyramid = new PelArray[levels + 1];
+         newPyramid[0] = this;
+
+         for (level = 1; level <= levels; ++level)
+            {
+            if ((pyramid != null) && (level < pyramid.length))
+               {
+               newPyramid[level] = pyramid[level];
+               }
+            else
+               {
+               previous = newPyramid[level - 1];
+               newPyramid[level] = previous.boxScale((previous.getWidth() + 1) / 2, (previous.getHeight() + 1) / 2);
+               }
+            }
+
+         pyramid = newPyramid;
+         } // if ((pyramid == null) || (pyramid.length <= levels))
+
+      return pyramid;
+      } // PelArray[] buildPyramid(int levels)
+
+/*
+ * Estimate the center of mass {x, y} of the image from the given level of its pyramid (building it if needed), then refine it.
+ * Every pel of the level stands for its square of pels of this image: its value times the number of pels in the square, at the
+ * center of the square. That gives the estimate. The squares that overlap the window from left columns left of the estimate to
+ * right columns right of it, and from up rows above it to down rows below it, are then replaced by the pels of this image
+ * inside them, and the center of mass is worked out again. So this image is only read inside (about) that window, while the
+ * rest of the image still counts through the pyramid. Pass a window of zero size to only get the estimate.
+ * The result is close to calcCOM() but not always the same, since the pels outside the window are averaged.
+ * If all the pels are zero the center of the image is returned. Returns null if the mass is negative.
+ */
+   int[] coarseCOM(int level, int left, int up, int right, int down)
+      {
+      double[] sums;
+      int[] com = new int[2];
+      int[] window = new int[4];    // first box column, first box row, last box column, last box row of the window (none yet)
+
+      int iRowCount = arrayOfPels.length;
+      int iColCount = arrayOfPels[0].length;
+      int[][] coarsePels = buildPyramid(level)[level].arrayOfPels;
+      int boxSize = 1 << level;
+
+      window[0] = 0;
+      window[1] = 0;
+      window[2] = -1;
+      window[3] = -1;
+      sums = coarseSums(coarsePels, boxSize, window);
+
+      if ((sums[2] > 0.0) && ((left + right > 0) || (up + down > 0)))
+         {
+         com[0] = (int)Math.round(sums[0] / sums[2]);
+         com[1] = (int)Math.round(sums[1] / sums[2]);
+
+         window[0] = max(com[0] - left, 0) / boxSize;
+         window[1] = max(com[1] - up, 0) / boxSize;
+         window[2] = min(com[0] + right, iColCount - 1) / boxSize;
+         window[3] = min(com[1] + down, iRowCount - 1) / boxSize;
+
+         int firstRow = window[1] * boxSize;
+         int firstCol = window[0] * boxSize;
+         int endRow = min((window[3] + 1) * boxSize, iRowCount);
+         int endCol = min((window[2] + 1) * boxSize, iColCount);
+
+         double[] outside = coarseSums(coarsePels, boxSize, window);
+         double[] inside = reduceRows(endRow - firstRow, endCol - firstCol, 3, (fromRow, toRow, blockSums) ->
+            {
+            double colCom = 0.0, rowCom = 0.0, mass = 0.0;
+
+            for (int iRow = firstRow + fromRow; iRow < firstRow + toRow; ++iRow)
+               {
+               for (int iCol = firstCol; iCol < endCol; ++iCol)
+                  {
+                  colCom += ((double)iCol) * ((double)arrayOfPels[iRow][iCol]);
+                  rowCom += ((double)iRow) * ((double)arrayOfPels[iRow][iCol]);
+                  mass += (double)arrayOfPels[iRow][iCol];
+                  }
+               }
+
+            blockSums[0] += colCom;
+            blockSums[1] += rowCom;
+            blockSums[2] += mass;
+            });
+
+         for (int i = 0; i < sums.length; ++i) sums[i] = outside[i] + inside[i];
+         } // if ((sums[2] > 0.0) && ((left + right > 0) || (up + down > 0)))
+
+      if (sums[2] > 0.0)
+         {
+         com[0] = (int)Math.round(sums[0] / sums[2]);
+         com[1] = (int)Math.round(sums[1] / sums[2]);
+         }
+      else if (sums[2] == 0.0)
+         {
+         com[0] = iColCount / 2;
+         com[1] = iRowCount / 2;
+         }
+      else
+         {
+         com = null;
+         }
+
+      return com;
+      } // int[] coarseCOM(int level, int left, int up, int right, int down)
+
+/*
+ * Return the column moment, row moment and mass {x, y, mass} of the given pyramid level in the coordinates of this image
+ * (see coarseCOM()), leaving out the pels of the level inside window {first column, first row, last column, last row}.
+ */
+   private double[] coarseSums(int[][] coarsePels, int boxSize, int[] window)
+      {
+      int bRow, bCol;
+      double rowCenter, boxPels;
+      double colCom = 0.0, rowCom = 0.0, mass = 0.0;
+
+      int iRowCount = arrayOfPels.length;
+      int iColCount = arrayOfPels[0].length;
+      double[] colCenter = new double[coarsePels[0].length];   // centers and widths of the squares of each column of the level
+      double[] colPels = new double[coarsePels[0].length];
+
+      for (bCol = 0; bCol < colCenter.length; ++bCol)
+         {
+         colPels[bCol] = min((bCol + 1) * boxSize, iColCount) - bCol * boxSize;
+         colCenter[bCol] = bCol * boxSize + (colPels[bCol] - 1.0) / 2.0;
+         }
+
+      for (bRow = 0; bRow < coarsePels.length; ++bRow)
+         {
+         boxPels = min((bRow + 1) * boxSize, iRowCount) - bRow * boxSize;
+         rowCenter = bRow * boxSize + (boxPels - 1.0) / 2.0;
+
+         for (bCol = 0; bCol < colCenter.length; ++bCol)
+            {
+            if ((bRow >= window[1]) && (bRow <= window[3]) && (bCol >= window[0]) && (bCol <= window[2])) continue;
+
+            double value = ((double)coarsePels[bRow][bCol]) * boxPels * colPels[bCol];
+            colCom += colCenter[bCol] * value;
+            rowCom += rowCenter * value;
+            mass += value;
+            }
+         } // for (bRow = 0; bRow < coarsePels.length; ++bRow)
+
+      return new double[] {colCom, rowCom, mass};
+      } // private double[] coarseSums(int[][] coarsePels, int boxSize, int[] window)
+
 /*
  * Simple method to dump the pelArray to the console as hex values per pel followed by a space.
  * The default format is "%06X " which can get overridden by passing a new format string.
@@ -572,15 +1097,33 @@ RightColumn:
  * The colorToGrayscale method takes a color picture element (pel) and returns the gray scale pel using just one of may possible formulas
  */
    int grayScalePel(int pel)
+      {
+      int lum = grayLevel(pel); // Calculate the gray scale color
+
+      return ((lum & 0x00FF) << 16) | ((lum & 0x00FF) << 8) | (lum & 0x00FF); // Build the RGB pel from the one gray scale color
+      }
+
+/*
+ * Returns the gray scale color (0-255) of a single RGB pel: Math.round(0.3 * red + 0.589 * green + 0.11 * blue), done with
+ * three table lookups and two adds instead of three double multiplies.
+ * The sum of the table entries is (1000 * lum + 500) * GRAYSCALE, whose high 32 bits are the rounded lum for every pel
+ * (GRAYSCALE is 0.704 more than 2^32 / 1000, which adds less than 0.0001 to the fraction of any lum up to 255). When the
+ * exact lum ends in .5 the fraction is below GRAYTIE. The doubles don't always round those halves up (0.589 isn't exact
+ * in binary), so for them (about 1 pel in 1000 colors) the double formula is used to keep the result the same for all
+ * 16777216 colors.
+ */
+   static int grayLevel(int pel)
       {
       int blue   =  pel        & 0x00FF; // Extract the R, G, B color bytes
       int green  = (pel >> 8)  & 0x00FF;
       int red    = (pel >> 16) & 0x00FF;
-    
-      int lum = (int)Math.round(0.3 * (double)red + 0.589 * (double)green + 0.11 * (double)blue); // Calculate the gray scale color
 
-      return ((lum & 0x00FF) << 16) | ((lum & 0x00FF) << 8) | (lum & 0x00FF); // Build the RGB pel from the one gray scale color
-      }
+      long lum = RED_GRAY[red] + GREEN_GRAY[green] + BLUE_GRAY[blue];
+
+      if ((lum & 0xFFFFFFFFL) < GRAYTIE) return (int)Math.round(0.3 * (double)red + 0.589 * (double)green + 0.11 * (double)blue) & 0x00FF;
+
+      return (int)(lum >>> 32);
+      } // static int grayLevel(int pel)
 
 /*
 * Takes the array of pels and returns a gray scale version of the PelArray
@@ -588,20 +1131,21 @@ RightColumn:
 */
    PelArray grayScaleImage()
       {
-      int iRow, iCol;
-
       int iRowCount = arrayOfPels.length;
       int iColCount = arrayOfPels[0].length;
 
       int[][] targetArray = new int[iRowCount][iColCount];
 
-      for (iRow = 0;  iRow < iRowCount; ++iRow)
+      forRowBlocks(iRowCount, iColCount, (firstRow, endRow) ->
          {
-         for (iCol = 0; iCol < iColCount; ++iCol)
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
             {
-            targetArray[iRow][iCol] = grayScalePel(arrayOfPels[iRow][iCol]);
+            for (int iCol = 0; iCol < iColCount; ++iCol)
+               {
+               targetArray[iRow][iCol] = grayScalePel(arrayOfPels[iRow][iCol]);
+               }
             }
-         }
+         });
 
       return new PelArray(targetArray);
       } // PelArray grayScaleImage()
@@ -612,20 +1156,21 @@ RightColumn:
 */
    PelArray onesComplimentImage()
       {
-      int iRow, iCol;
-
       int iRowCount = arrayOfPels.length;
       int iColCount = arrayOfPels[0].length;
 
       int[][] targetArray = new int[iRowCount][iColCount];
 
-      for (iRow = 0;  iRow < iRowCount; ++iRow)
+      forRowBlocks(iRowCount, iColCount, (firstRow, endRow) ->
          {
-         for (iCol = 0; iCol < iColCount; ++iCol)
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
             {
-            targetArray[iRow][iCol] = (~arrayOfPels[iRow][iCol]) & WHITE; // Need to mask off the unused most significant byte
+            for (int iCol = 0; iCol < iColCount; ++iCol)
+               {
+               targetArray[iRow][iCol] = (~arrayOfPels[iRow][iCol]) & WHITE; // Need to mask off the unused most significant byte
+               }
             }
-         }
+         });
 
       return new PelArray(targetArray);
       } // PelArray onesComplimentImage()
@@ -647,20 +1192,21 @@ RightColumn:
 */
    PelArray oneColorImage(int color)
       {
-      int iRow, iCol;
-
       int iRowCount = arrayOfPels.length;
       int iColCount = arrayOfPels[0].length;
 
       int[][] targetArray = new int[iRowCount][iColCount];
 
-      for (iRow = 0;  iRow < iRowCount; ++iRow)
+      forRowBlocks(iRowCount, iColCount, (firstRow, endRow) ->
          {
-         for (iCol = 0; iCol < iColCount; ++iCol)
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
             {
-            targetArray[iRow][iCol] = oneColorPel(arrayOfPels[iRow][iCol], color);
+            for (int iCol = 0; iCol < iColCount; ++iCol)
+               {
+               targetArray[iRow][iCol] = oneColorPel(arrayOfPels[iRow][iCol], color);
+               }
             }
-         }
+         });
 
       return new PelArray(targetArray);
       } // PelArray oneColorImage(int color)
@@ -674,20 +1220,21 @@ RightColumn:
 */
    PelArray forceMin(int limit, int forced)
       {
-      int iRow, iCol;
-
       int iRowCount = arrayOfPels.length;
       int iColCount = arrayOfPels[0].length;
 
       int[][] targetArray = new int[iRowCount][iColCount];
 
-      for (iRow = 0;  iRow < iRowCount; ++iRow)
+      forRowBlocks(iRowCount, iColCount, (firstRow, endRow) ->
          {
-         for (iCol = 0; iCol < iColCount; ++iCol)
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
             {
-            targetArray[iRow][iCol] = (arrayOfPels[iRow][iCol] < limit) ? forced : arrayOfPels[iRow][iCol];
+            for (int iCol = 0; iCol < iColCount; ++iCol)
+               {
+               targetArray[iRow][iCol] = (arrayOfPels[iRow][iCol] < limit) ? forced : arrayOfPels[iRow][iCol];
+               }
             }
-         }
+         });
 
       return new PelArray(targetArray);
       } // PelArray forceMin(int limit, int forced)
@@ -701,20 +1248,21 @@ RightColumn:
 */
    PelArray forceMax(int limit, int forced)
       {
-      int iRow, iCol;
-
       int iRowCount = arrayOfPels.length;
       int iColCount = arrayOfPels[0].length;
 
       int[][] targetArray = new int[iRowCount][iColCount];
 
-      for (iRow = 0;  iRow < iRowCount; ++iRow)
+      forRowBlocks(iRowCount, iColCount, (firstRow, endRow) ->
          {
-         for (iCol = 0; iCol < iColCount; ++iCol)
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
             {
-            targetArray[iRow][iCol] = (arrayOfPels[iRow][iCol] > limit) ? forced : arrayOfPels[iRow][iCol];
+            for (int iCol = 0; iCol < iColCount; ++iCol)
+               {
+               targetArray[iRow][iCol] = (arrayOfPels[iRow][iCol] > limit) ? forced : arrayOfPels[iRow][iCol];
+               }
             }
-         }
+         });
 
       return new PelArray(targetArray);
       } // PelArray forceMax(int limit, int forced)
@@ -731,40 +1279,41 @@ RightColumn:
 */
    PelArray offsetColors(int redOffset, int greenOffset, int blueOffset)
       {
-      int iRow, iCol;
-
       int iRowCount = arrayOfPels.length;
       int iColCount = arrayOfPels[0].length;
 
       int[][] targetArray = new int[iRowCount][iColCount];
 
-      for (iRow = 0;  iRow < iRowCount; ++iRow)
+      forRowBlocks(iRowCount, iColCount, (firstRow, endRow) ->
          {
-         for (iCol = 0; iCol < iColCount; ++iCol)
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
             {
-            int pelRedValue, pelGreenValue, pelBlueValue;
-/*
-**  Remember that RED = 0x00FF0000, GREEN = 0x0000FF00 and BLUE  = 0x000000FF, so we need to shift red and green to get the byte value between 0 and 255
-*/
-            pelRedValue   = ((arrayOfPels[iRow][iCol] & RED)   >> 16) + redOffset;   // Mask off the relevant color, make it 0-255 and add the passed color offsets
-            pelGreenValue = ((arrayOfPels[iRow][iCol] & GREEN) >>  8) + greenOffset;
-            pelBlueValue  = (arrayOfPels[iRow][iCol] & BLUE)          + blueOffset;
-
-/*
-** Now make sure that each color stays in the range 0 to 255
-*/ 
-            pelRedValue = min(pelRedValue, 255);
-            pelRedValue = max(pelRedValue, 0);
-
-            pelGreenValue = min(pelGreenValue, 255);
-            pelGreenValue = max(pelGreenValue, 0);
-
-            pelBlueValue = min(pelBlueValue, 255);
-            pelBlueValue = max(pelBlueValue, 0);
-
-            targetArray[iRow][iCol] = (pelRedValue  << 16) | (pelGreenValue << 8) | pelBlueValue; // Rebuild the picture element with the new color values
+            for (int iCol = 0; iCol < iColCount; ++iCol)
+               {
+               int pelRedValue, pelGreenValue, pelBlueValue;
+               /*
+               **  Remember that RED = 0x00FF0000, GREEN = 0x0000FF00 and BLUE  = 0x000000FF, so we need to shift red and green to get the byte value between 0 and 255
+               */
+               pelRedValue   = ((arrayOfPels[iRow][iCol] & RED)   >> 16) + redOffset;   // Mask off the relevant color, make it 0-255 and add the passed color offsets
+               pelGreenValue = ((arrayOfPels[iRow][iCol] & GREEN) >>  8) + greenOffset;
+               pelBlueValue  = (arrayOfPels[iRow][iCol] & BLUE)          + blueOffset;
+
+               /*
+               ** Now make sure that each color stays in the range 0 to 255
+               */
+               pelRedValue = min(pelRedValue, 255);
+               pelRedValue = max(pelRedValue, 0);
+
+               pelGreenValue = min(pelGreenValue, 255);
+               pelGreenValue = max(pelGreenValue, 0);
+
+               pelBlueValue = min(pelBlueValue, 255);
+               pelBlueValue = max(pelBlueValue, 0);
+
+               targetArray[iRow][iCol] = (pelRedValue  << 16) | (pelGreenValue << 8) | pelBlueValue; // Rebuild the picture element with the new color values
+               }
             }
-         }
+         });
 
       return new PelArray(targetArray);
       } // PelArray offsetColors(int redOffset, int greenOffset, int blueOffset)
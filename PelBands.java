@@ -0,0 +1,375 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/*
+ * Author: Luke Zeng
+ * Date of Creation: 10/19/2026
+ *
+ * Description: The PelArray operations on an image too large to hold in memory, streamed in horizontal bands of rows.
+ *              A PelBands doesn't hold its pels; it knows how to make any band of its rows (rows(firstRow, endRow)) as a
+ *              PelArray from the bands of the image it was applied to, and an image read from a BMP file (open) makes its
+ *              bands by decoding only the scan lines of those rows (BMPDecoder.readRows). So the image never has to be in
+ *              memory all at once: the work is done, and the result is used, one band at a time (forEachBand, calcCOM),
+ *              and at most a band of each operation of a pipeline is in memory at any time.
+ *
+ *              Only the operations that need nothing but the rows of a band (or the rows of one band of their source) are
+ *              here: the per pel operations, the flips, crop and scale. The rotations turn rows into columns, so they would
+ *              need every row of the source for each band and aren't here; make the image small first (crop, scale) and
+ *              rotate the PelArray toPelArray gives.
+ *
+ *              Every operation gives the pels the PelArray operation of the same name gives, and calcCOM adds up the same
+ *              blocks of rows PelArray.calcCOM does in the same order (BANDHEIGHT is a multiple of PelArray.BLOCKROWS),
+ *              so the center of mass is the same to the last bit. Nothing is cached: a band asked for twice is made twice.
+ *
+ * Table of Contents:
+ *    protected PelBands(int width, int height)
+ *    public static PelBands open(String filename) throws IOException
+ *    public static PelBands of(PelArray p)
+ *    public abstract PelArray rows(int firstRow, int endRow)
+ *    public int getWidth()
+ *    public int getHeight()
+ *    public PelArray toPelArray()
+ *    public void forEachBand(BandConsumer consumer) throws IOException
+ *    public boolean calcCOM() throws IOException
+ *    public int getXcom() throws IOException
+ *    public int getYcom() throws IOException
+ *    public PelBands flipHorizontal()
+ *    public PelBands flipVertical()
+ *    public PelBands crop(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+ *    public PelBands scale(int newColumnWidth, int newRowHeight)
+ *    public PelBands grayScaleImage()
+ *    public PelBands onesComplimentImage()
+ *    public PelBands oneColorImage(int color)
+ *    public PelBands forceMin(int limit, int forced)
+ *    public PelBands forceMax(int limit, int forced)
+ *    public PelBands offsetColors(int redOffset, int greenOffset, int blueOffset)
+ *    public PelBands map(UnaryOperator<PelArray> op)
+ */
+
+public abstract class PelBands
+{
+   public static final int BANDHEIGHT = 4 * PelArray.BLOCKROWS; // rows in a band of forEachBand (a multiple of PelArray.BLOCKROWS).
+
+   protected final int width;
+   protected final int height;
+
+   private boolean comKnownFlag; // true once the center of mass is calculated.
+   private int xComColumnVal;    // x (column) center of mass value.
+   private int yComRowVal;       // y (row) center of mass value.
+
+/*
+ * Takes each band made by forEachBand, firstRow being the row of the image the first row of the band is.
+ */
+   public interface BandConsumer
+   {
+      void band(int firstRow, PelArray band) throws IOException;
+   }
+
+/*
+ * Creates an image of the given size (for the operations).
+ */
+   protected PelBands(int width, int height)
+   {
+      this.width = width;
+      this.height = height;
+   }
+
+/*
+ * returns the image of the given BMP file. Only the header and the color table are read here; every band is decoded from the
+ * file (which stays mapped, not read, see BMPDecoder.map) when it is asked for.
+ */
+   public static PelBands open(String filename) throws IOException
+   {
+      ByteBuffer buf = BMPDecoder.map(filename);
+      BMPDecoder decoder = new BMPDecoder();
+
+      decoder.readHeader(buf);
+      decoder.readColorTable(buf);
+
+      return new PelBands(decoder.width, decoder.height)
+      {
+         @Override
+         public PelArray rows(int firstRow, int endRow)
+         {
+            return new PelArray(decoder.readRows(buf, firstRow, endRow));
+         }
+      };
+   } // public static PelBands open(String filename) throws IOException
+
+/*
+ * returns the image of the pels of the given PelArray (its rows are shared, not copied, so they shouldn't change while the
+ * PelBands is in use).
+ */
+   public static PelBands of(PelArray p)
+   {
+      int[][] pels = p.arrayOfPels;
+
+      return new PelBands(pels[0].length, pels.length)
+      {
+         @Override
+         public PelArray rows(int firstRow, int endRow)
+         {
+            return new PelArray(Arrays.copyOfRange(pels, firstRow, endRow));
+         }
+      };
+   } // public static PelBands of(PelArray p)
+
+/*
+ * returns the rows from firstRow up to, but not including, endRow (0 at the top) as a PelArray, making them from the source
+ * image. There must be at least one row (firstRow < endRow).
+ */
+   public abstract PelArray rows(int firstRow, int endRow);
+
+   public int getWidth()
+   {
+      return width;
+   }
+
+   public int getHeight()
+   {
+      return height;
+   }
+
+/*
+ * makes every row and returns them as one PelArray (for an image that fits in memory, like the end of a pipeline that crops
+ * and scales).
+ */
+   public PelArray toPelArray()
+   {
+      return rows(0, height);
+   }
+
+/*
+ * makes the image one band of BANDHEIGHT rows (fewer for the last one) at a time, from the top, and gives each band to the
+ * consumer before the next one is made.
+ */
+   public void forEachBand(BandConsumer consumer) throws IOException
+   {
+      for (int firstRow = 0; firstRow < height; firstRow += BANDHEIGHT)
+      {
+         consumer.band(firstRow, rows(firstRow, Math.min(firstRow + BANDHEIGHT, height)));
+      }
+   }
+
+/*
+ * calculates the center of mass the way PelArray.calcCOM does, one band at a time. Every band starts on a multiple of
+ * PelArray.BLOCKROWS, so its blocks (PelArray.reduceRowBlocks) are blocks of the whole image and adding them up in order
+ * gives the sums PelArray.reduceRows gives for the whole image.
+ */
+   public boolean calcCOM() throws IOException
+   {
+      double[] sums = new double[3];
+
+      forEachBand((bandRow, band) ->
+      {
+         int[][] pels = band.arrayOfPels;
+         double[][] blockSums = PelArray.reduceRowBlocks(pels.length, width, 3, (firstRow, endRow, bandSums) ->
+         {
+            double colCom = 0.0, rowCom = 0.0, mass = 0.0;
+
+            for (int iRow = firstRow; iRow < endRow; ++iRow)
+            {
+               for (int iCol = 0; iCol < width; ++iCol)
+               {
+                  colCom += ((double) iCol) * ((double) pels[iRow][iCol]);
+                  rowCom += ((double) (bandRow + iRow)) * ((double) pels[iRow][iCol]);
+                  mass += (double) pels[iRow][iCol];
+               }
+            }
+
+            bandSums[0] += colCom;
+            bandSums[1] += rowCom;
+            bandSums[2] += mass;
+         });
+
+         for (double[] block : blockSums)
+         {
+            for (int i = 0; i < sums.length; ++i) sums[i] += block[i];
+         }
+      }); // forEachBand((bandRow, band) ->
+      double fColCom = sums[0], fRowCom = sums[1], fMass = sums[2];
+
+      comKnownFlag = true;
+
+      if (fMass > 0.0)
+      {
+         xComColumnVal = (int) Math.round(fColCom / fMass);
+         yComRowVal = (int) Math.round(fRowCom / fMass);
+      }
+      else if (fMass == 0.0) // all pels are zero, so the center of the image.
+      {
+         xComColumnVal = width / 2;
+         yComRowVal = height / 2;
+      }
+      else
+      {
+         comKnownFlag = false;
+         xComColumnVal = 0;
+         yComRowVal = 0;
+      }
+
+      return comKnownFlag;
+   } // public boolean calcCOM() throws IOException
+
+   public int getXcom() throws IOException
+   {
+      if (!comKnownFlag) calcCOM();
+
+      return xComColumnVal;
+   }
+
+   public int getYcom() throws IOException
+   {
+      if (!comKnownFlag) calcCOM();
+
+      return yComRowVal;
+   }
+
+/*
+ * returns the image flipped about the horizontal central line (top becomes bottom) like PelArray.flipHorizontal. Each band
+ * is the band of the source as far from the bottom as it is from the top, flipped.
+ */
+   public PelBands flipHorizontal()
+   {
+      PelBands source = this;
+
+      return new PelBands(width, height)
+      {
+         @Override
+         public PelArray rows(int firstRow, int endRow)
+         {
+            return source.rows(height - endRow, height - firstRow).flipHorizontal();
+         }
+      };
+   } // public PelBands flipHorizontal()
+
+/*
+ * returns the image flipped about the vertical central line (left becomes right) like PelArray.flipVertical. Each band is
+ * the same band of the source, flipped.
+ */
+   public PelBands flipVertical()
+   {
+      return map(band -> band.flipVertical());
+   }
+
+/*
+ * returns the given rectangle of the image (corners included), with the parts outside the image 0 like PelArray.crop.
+ * Each band reads only the rows of the source inside the image that it keeps.
+ */
+   public PelBands crop(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+   {
+      PelBands source = this;
+
+      return new PelBands(xLowerRight - xUpperLeft + 1, yLowerRight - yUpperLeft + 1)
+      {
+         @Override
+         public PelArray rows(int firstRow, int endRow)
+         {
+            int sourceFirst = yUpperLeft + firstRow;                         // source rows of the band, inside the image or not.
+            int sourceEnd = yUpperLeft + endRow;
+            int readFirst = Math.max(sourceFirst, 0);                        // the ones inside the image.
+            int readEnd = Math.min(sourceEnd, source.height);
+
+            if (readFirst >= readEnd) return new PelArray(new int[endRow - firstRow][width]); // the band is all outside the image.
+
+            return source.rows(readFirst, readEnd).crop(xUpperLeft, sourceFirst - readFirst, xLowerRight, sourceEnd - 1 - readFirst);
+         }
+      };
+   } // public PelBands crop(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight)
+
+/*
+ * returns the image scaled to the given size like PelArray.scale. Scaling down in both directions, each new row is the box
+ * of source rows that goes into it (PelArray.boxStart), box filtered on its own, so only one box of source rows is read at
+ * a time. Otherwise each new pel is sampled from the source row and column PelArray.scale samples it from.
+ */
+   public PelBands scale(int newColumnWidth, int newRowHeight)
+   {
+      PelBands source = this;
+      boolean box = (newColumnWidth <= width) && (newRowHeight <= height);
+      double xColumnRatio = ((double) (width - 1)) / ((double) (newColumnWidth - 1));
+      double yRowRatio = ((double) (height - 1)) / ((double) (newRowHeight - 1));
+
+      return new PelBands(newColumnWidth, newRowHeight)
+      {
+         @Override
+         public PelArray rows(int firstRow, int endRow)
+         {
+            int[][] targetArray = new int[endRow - firstRow][];
+            int[] sourceRow;
+            int iSourceRow;
+
+            for (int iRow = firstRow; iRow < endRow; ++iRow)
+            {
+               if (box)
+               {
+                  targetArray[iRow - firstRow] = source.rows(PelArray.boxStart(iRow, source.height, newRowHeight),
+                        PelArray.boxStart(iRow + 1, source.height, newRowHeight)).boxScale(newColumnWidth, 1).arrayOfPels[0];
+               }
+               else
+               {
+                  iSourceRow = (int) Math.round(((double) iRow) * yRowRatio);
+                  sourceRow = source.rows(iSourceRow, iSourceRow + 1).arrayOfPels[0];
+                  targetArray[iRow - firstRow] = new int[newColumnWidth];
+
+                  for (int iCol = 0; iCol < newColumnWidth; ++iCol)
+                  {
+                     targetArray[iRow - firstRow][iCol] = sourceRow[(int) Math.round(((double) iCol) * xColumnRatio)];
+                  }
+               }
+            } // for (int iRow = firstRow; iRow < endRow; ++iRow)
+
+            return new PelArray(targetArray);
+         }
+      };
+   } // public PelBands scale(int newColumnWidth, int newRowHeight)
+
+   public PelBands grayScaleImage()
+   {
+      return map(band -> band.grayScaleImage());
+   }
+
+   public PelBands onesComplimentImage()
+   {
+      return map(band -> band.onesComplimentImage());
+   }
+
+   public PelBands oneColorImage(int color)
+   {
+      return map(band -> band.oneColorImage(color));
+   }
+
+   public PelBands forceMin(int limit, int forced)
+   {
+      return map(band -> band.forceMin(limit, forced));
+   }
+
+   public PelBands forceMax(int limit, int forced)
+   {
+      return map(band -> band.forceMax(limit, forced));
+   }
+
+   public PelBands offsetColors(int redOffset, int greenOffset, int blueOffset)
+   {
+      return map(band -> band.offsetColors(redOffset, greenOffset, blueOffset));
+   }
+
+/*
+ * returns the image whose every band is the given operation applied to the same band of this image. The operation must
+ * give a band of the same rows (any PelArray operation that works pel by pel or row by row).
+ */
+   public PelBands map(UnaryOperator<PelArray> op)
+   {
+      PelBands source = this;
+
+      return new PelBands(width, height)
+      {
+         @Override
+         public PelArray rows(int firstRow, int endRow)
+         {
+            return op.apply(source.rows(firstRow, endRow));
+         }
+      };
+   } // public PelBands map(UnaryOperator<PelArray> op)
+} // public abstract class PelBands
@@ -0,0 +1,661 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Author: Luke Zeng
+ * Date of Creation: 10/19/2026
+ *
+ * Description: An image of pels (0x00RRGGBB, (0,0) in the upper left corner) in one flat int array, addressed by a stride:
+ *              the pel at (row, col) is data[offset + row * stride + col]. Unlike PelArray, whose every operation returns a
+ *              new image, the per pel operations, the flips and offset change the pels in place and return this buffer,
+ *              so a chain of them allocates nothing. A crop that lies inside the image is a view of the same array (only
+ *              offset, width and height change). Operations that need a new image (rotations, scale, a crop that runs off
+ *              the image) take it from a Pool, which hands out arrays that were released back to it, so processing one
+ *              image after another reuses the same few arrays instead of allocating new ones for every image.
+ *
+ *              Every operation gives the pels the PelArray operation of the same name gives.
+ *
+ * Table of Contents:
+ *    public PelBuffer(int width, int height)
+ *    public PelBuffer(int[] data, int offset, int width, int height, int stride)
+ *    public static PelBuffer read(String filename, Pool pool) throws IOException
+ *    public static PelBuffer fromPelArray(PelArray p)
+ *    public PelArray toPelArray()
+ *    public int getWidth()
+ *    public int getHeight()
+ *    public int get(int row, int col)
+ *    public void set(int row, int col, int pel)
+ *    public int index(int row, int col)
+ *    public boolean calcCOM()
+ *    public int getXcom()
+ *    public int getYcom()
+ *    public PelBuffer grayScaleInPlace()
+ *    public PelBuffer onesComplimentInPlace()
+ *    public PelBuffer oneColorInPlace(int color)
+ *    public PelBuffer forceMinInPlace(int limit, int forced)
+ *    public PelBuffer forceMaxInPlace(int limit, int forced)
+ *    public PelBuffer offsetColorsInPlace(int redOffset, int greenOffset, int blueOffset)
+ *    public PelBuffer flipHorizontalInPlace()
+ *    public PelBuffer flipVerticalInPlace()
+ *    public PelBuffer offsetInPlace(int x, int y)
+ *    public PelBuffer crop(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight, Pool pool)
+ *    public PelBuffer scale(int newColumnWidth, int newRowHeight, Pool pool)
+ *    private PelBuffer boxScale(PelBuffer ret)
+ *    public PelBuffer rotateCCW90(Pool pool)
+ *    public PelBuffer rotateCW90(Pool pool)
+ */
+
+public class PelBuffer
+{
+   public final int[] data;   // the pels (possibly of a larger image this buffer is a view of).
+   public final int offset;   // index of pel (0, 0) in data.
+   public final int width;
+   public final int height;
+   public final int stride;   // distance in data from one row to the next.
+
+   private boolean comKnownFlag; // true once the center of mass is calculated (cleared by every operation in place).
+   private int xComColumnVal;    // x (column) center of mass value.
+   private int yComRowVal;       // y (row) center of mass value.
+
+/*
+ * Arrays for PelBuffers, reused once they are released. Thread safe. Only buffers acquired from a pool should be released
+ * to it, and never while a view of them (a crop) is still in use.
+ */
+   public static class Pool
+   {
+      public static final int MAXFREE = 4; // released arrays kept; more are left to the garbage collector.
+
+      private final ArrayDeque<int[]> free = new ArrayDeque<int[]>();
+
+/*
+ * returns a buffer of the given size, on a released array if one is large enough (its pels are then not cleared).
+ */
+      public synchronized PelBuffer acquire(int width, int height)
+      {
+         Iterator<int[]> it = free.iterator();
+         int[] cur;
+         int[] found = null;
+
+         while (found == null && it.hasNext())
+         {
+            cur = it.next();
+
+            if (cur.length >= width * height)
+            {
+               found = cur;
+               it.remove();
+            }
+         }
+
+         return new PelBuffer(found != null ? found : new int[width * height], 0, width, height, width);
+      } // public synchronized PelBuffer acquire(int width, int height)
+
+/*
+ * gives the array of the given buffer back to the pool.
+ */
+      public synchronized void release(PelBuffer buffer)
+      {
+         if (free.size() >= MAXFREE)
+         {
+            free.removeLast();
+         }
+
+         free.addFirst(buffer.data);
+      }
+   } // public static class Pool
+
+/*
+ * Creates a black buffer of the given size.
+ */
+   public PelBuffer(int width, int height)
+   {
+      this(new int[width * height], 0, width, height, width);
+   }
+
+/*
+ * Creates a buffer on the given array (not copied).
+ */
+   public PelBuffer(int[] data, int offset, int width, int height, int stride)
+   {
+      if (offset < 0 || width < 0 || height < 0 || stride < width || (height > 0 && offset + (height - 1) * stride + width > data.length))
+      {
+         throw new IllegalArgumentException("a " + width + "x" + height + " buffer at " + offset + " with stride " + stride
+                                            + " doesn't fit in " + data.length + " pels");
+      }
+
+      this.data = data;
+      this.offset = offset;
+      this.width = width;
+      this.height = height;
+      this.stride = stride;
+   } // public PelBuffer(int[] data, int offset, int width, int height, int stride)
+
+/*
+ * returns the pels of the given BMP file in a buffer from the given pool (a new buffer if pool is null).
+ */
+   public static PelBuffer read(String filename, Pool pool) throws IOException
+   {
+      BMPDecoder decoder = new BMPDecoder();
+      ByteBuffer buf = BMPDecoder.map(filename);
+      PelBuffer ret;
+
+      decoder.readHeader(buf);
+      ret = pool != null ? pool.acquire(decoder.width, decoder.height) : new PelBuffer(decoder.width, decoder.height);
+      decoder.readFlatParallel(buf, ForkJoinPool.commonPool(), ret.data);
+
+      return ret;
+   } // public static PelBuffer read(String filename, Pool pool) throws IOException
+
+/*
+ * returns a buffer with a copy of the pels of the given PelArray.
+ */
+   public static PelBuffer fromPelArray(PelArray p)
+   {
+      PelBuffer ret = new PelBuffer(p.getWidth(), p.getHeight());
+
+      for (int iRow = 0; iRow < ret.height; iRow++)
+      {
+         System.arraycopy(p.arrayOfPels[iRow], 0, ret.data, iRow * ret.width, ret.width);
+      }
+
+      return ret;
+   }
+
+/*
+ * returns a PelArray with a copy of the pels.
+ */
+   public PelArray toPelArray()
+   {
+      int[][] targetArray = new int[height][width];
+
+      for (int iRow = 0; iRow < height; iRow++)
+      {
+         System.arraycopy(data, offset + iRow * stride, targetArray[iRow], 0, width);
+      }
+
+      return new PelArray(targetArray);
+   }
+
+   public int getWidth()
+   {
+      return width;
+   }
+
+   public int getHeight()
+   {
+      return height;
+   }
+
+   public int get(int row, int col)
+   {
+      return data[offset + row * stride + col];
+   }
+
+   public void set(int row, int col, int pel)
+   {
+      data[offset + row * stride + col] = pel;
+      comKnownFlag = false;
+   }
+
+/*
+ * returns the index in data of the given pel.
+ */
+   public int index(int row, int col)
+   {
+      return offset + row * stride + col;
+   }
+
+/*
+ * calculates the center of mass the way PelArray.calcCOM does.
+ */
+   public boolean calcCOM()
+   {
+      double[] sums = PelArray.reduceRows(height, width, 3, (firstRow, endRow, blockSums) ->
+      {
+         double colCom = 0.0, rowCom = 0.0, mass = 0.0;
+         double value;
+         int rowStart;
+
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
+         {
+            rowStart = offset + iRow * stride;
+
+            for (int iCol = 0; iCol < width; ++iCol)
+            {
+               value = (double) data[rowStart + iCol];
+               colCom += ((double) iCol) * value;
+               rowCom += ((double) iRow) * value;
+               mass += value;
+            }
+         }
+
+         blockSums[0] += colCom;
+         blockSums[1] += rowCom;
+         blockSums[2] += mass;
+      });
+      double fColCom = sums[0], fRowCom = sums[1], fMass = sums[2];
+
+      comKnownFlag = true;
+
+      if (fMass > 0.0)
+      {
+         xComColumnVal = (int) Math.round(fColCom / fMass);
+         yComRowVal = (int) Math.round(fRowCom / fMass);
+      }
+      else if (fMass == 0.0) // all pels are zero, so use the center of the image.
+      {
+         xComColumnVal = width / 2;
+         yComRowVal = height / 2;
+      }
+      else // negative pels, PelArray.calcCOM reports an error.
+      {
+         comKnownFlag = false;
+         xComColumnVal = 0;
+         yComRowVal = 0;
+      }
+
+      return comKnownFlag;
+   } // public boolean calcCOM()
+
+/*
+ * returns the x (column) value of the center of mass, calculating it first if needed.
+ */
+   public int getXcom()
+   {
+      if (!comKnownFlag) calcCOM();
+
+      return xComColumnVal;
+   }
+
+/*
+ * returns the y (row) value of the center of mass, calculating it first if needed.
+ */
+   public int getYcom()
+   {
+      if (!comKnownFlag) calcCOM();
+
+      return yComRowVal;
+   }
+
+/*
+ * converts every pel to gray scale (see PelArray.grayScalePel).
+ */
+   public PelBuffer grayScaleInPlace()
+   {
+      int rowStart;
+
+      for (int iRow = 0; iRow < height; iRow++)
+      {
+         rowStart = offset + iRow * stride;
+
+         for (int i = rowStart; i < rowStart + width; i++)
+         {
+            data[i] = BMPDecoder.gray(data[i]) * GrayPelArray.REPLICATE;
+         }
+      }
+
+      comKnownFlag = false;
+      return this;
+   } // public PelBuffer grayScaleInPlace()
+
+/*
+ * takes the ones complement of every pel.
+ */
+   public PelBuffer onesComplimentInPlace()
+   {
+      int rowStart;
+
+      for (int iRow = 0; iRow < height; iRow++)
+      {
+         rowStart = offset + iRow * stride;
+
+         for (int i = rowStart; i < rowStart + width; i++)
+         {
+            data[i] = (~data[i]) & PelArray.WHITE;
+         }
+      }
+
+      comKnownFlag = false;
+      return this;
+   } // public PelBuffer onesComplimentInPlace()
+
+/*
+ * masks every pel with a single color: PelArray.RED, GREEN or BLUE.
+ */
+   public PelBuffer oneColorInPlace(int color)
+   {
+      int rowStart;
+
+      for (int iRow = 0; iRow < height; iRow++)
+      {
+         rowStart = offset + iRow * stride;
+
+         for (int i = rowStart; i < rowStart + width; i++)
+         {
+            data[i] &= color;
+         }
+      }
+
+      comKnownFlag = false;
+      return this;
+   } // public PelBuffer oneColorInPlace(int color)
+
+/*
+ * sets every pel below limit to forced.
+ */
+   public PelBuffer forceMinInPlace(int limit, int forced)
+   {
+      int rowStart;
+
+      for (int iRow = 0; iRow < height; iRow++)
+      {
+         rowStart = offset + iRow * stride;
+
+         for (int i = rowStart; i < rowStart + width; i++)
+         {
+            if (data[i] < limit) data[i] = forced;
+         }
+      }
+
+      comKnownFlag = false;
+      return this;
+   } // public PelBuffer forceMinInPlace(int limit, int forced)
+
+/*
+ * sets every pel above limit to forced.
+ */
+   public PelBuffer forceMaxInPlace(int limit, int forced)
+   {
+      int rowStart;
+
+      for (int iRow = 0; iRow < height; iRow++)
+      {
+         rowStart = offset + iRow * stride;
+
+         for (int i = rowStart; i < rowStart + width; i++)
+         {
+            if (data[i] > limit) data[i] = forced;
+         }
+      }
+
+      comKnownFlag = false;
+      return this;
+   } // public PelBuffer forceMaxInPlace(int limit, int forced)
+
+/*
+ * adds the given offsets to the colors of every pel, keeping each color between 0 and 255.
+ */
+   public PelBuffer offsetColorsInPlace(int redOffset, int greenOffset, int blueOffset)
+   {
+      int rowStart;
+      int red, green, blue;
+
+      for (int iRow = 0; iRow < height; iRow++)
+      {
+         rowStart = offset + iRow * stride;
+
+         for (int i = rowStart; i < rowStart + width; i++)
+         {
+            red   = Math.max(Math.min(((data[i] & PelArray.RED)   >> 16) + redOffset,   255), 0);
+            green = Math.max(Math.min(((data[i] & PelArray.GREEN) >>  8) + greenOffset, 255), 0);
+            blue  = Math.max(Math.min((data[i] & PelArray.BLUE)          + blueOffset,  255), 0);
+            data[i] = (red << 16) | (green << 8) | blue;
+         }
+      }
+
+      comKnownFlag = false;
+      return this;
+   } // public PelBuffer offsetColorsInPlace(int redOffset, int greenOffset, int blueOffset)
+
+/*
+ * flips the image about the horizontal central line (top becomes bottom) by swapping rows.
+ */
+   public PelBuffer flipHorizontalInPlace()
+   {
+      int[] row = new int[width];
+      int top;
+      int bottom;
+
+      for (int iRow = 0; iRow < height / 2; iRow++)
+      {
+         top = offset + iRow * stride;
+         bottom = offset + (height - 1 - iRow) * stride;
+
+         System.arraycopy(data, top, row, 0, width);
+         System.arraycopy(data, bottom, data, top, width);
+         System.arraycopy(row, 0, data, bottom, width);
+      }
+
+      comKnownFlag = false;
+      return this;
+   } // public PelBuffer flipHorizontalInPlace()
+
+/*
+ * flips the image about the vertical central line (left becomes right) by swapping pels within each row.
+ */
+   public PelBuffer flipVerticalInPlace()
+   {
+      int left;
+      int right;
+      int pel;
+
+      for (int iRow = 0; iRow < height; iRow++)
+      {
+         left = offset + iRow * stride;
+         right = left + width - 1;
+
+         for (; left < right; left++, right--)
+         {
+            pel = data[left];
+            data[left] = data[right];
+            data[right] = pel;
+         }
+      }
+
+      comKnownFlag = false;
+      return this;
+   } // public PelBuffer flipVerticalInPlace()
+
+/*
+ * offsets the image by x columns and y rows, filling the empty space with zero. Rows are moved in the order that never
+ * overwrites a row before it is moved.
+ */
+   public PelBuffer offsetInPlace(int x, int y)
+   {
+      int first = y > 0 ? height - 1 : 0; // target row moved first.
+      int step = y > 0 ? -1 : 1;
+      int srcCol = Math.max(0, -x);       // columns of a source row that stay inside the image.
+      int dstCol = Math.max(0, x);
+      int count = Math.max(0, width - Math.abs(x));
+      int srcRow;
+      int rowStart;
+
+      for (int iRow = first; iRow >= 0 && iRow < height; iRow += step)
+      {
+         srcRow = iRow - y;
+         rowStart = offset + iRow * stride;
+
+         if (srcRow >= 0 && srcRow < height && count > 0)
+         {
+            System.arraycopy(data, offset + srcRow * stride + srcCol, data, rowStart + dstCol, count);
+            Arrays.fill(data, rowStart, rowStart + dstCol, 0);
+            Arrays.fill(data, rowStart + dstCol + count, rowStart + width, 0);
+         }
+         else
+         {
+            Arrays.fill(data, rowStart, rowStart + width, 0);
+         }
+      } // for (int iRow = first; iRow >= 0 && iRow < height; iRow += step)
+
+      comKnownFlag = false;
+      return this;
+   } // public PelBuffer offsetInPlace(int x, int y)
+
+/*
+ * crops the image to the given frame (inclusive, x is columns and y is rows). A frame inside the image gives a view of the
+ * same pels (operations in place on it change this buffer too); otherwise the pels are copied into a buffer from the
+ * given pool (a new buffer if pool is null) with the parts outside the image 0.
+ */
+   public PelBuffer crop(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight, Pool pool)
+   {
+      int newWidth = xLowerRight - xUpperLeft + 1;
+      int newHeight = yLowerRight - yUpperLeft + 1;
+      int firstCol = Math.max(xUpperLeft, 0); // columns of the frame inside the image.
+      int lastCol = Math.min(xLowerRight, width - 1);
+      PelBuffer ret;
+
+      if (xUpperLeft >= 0 && yUpperLeft >= 0 && xLowerRight < width && yLowerRight < height)
+      {
+         ret = new PelBuffer(data, index(yUpperLeft, xUpperLeft), newWidth, newHeight, stride);
+      }
+      else
+      {
+         ret = pool != null ? pool.acquire(newWidth, newHeight) : new PelBuffer(newWidth, newHeight);
+         Arrays.fill(ret.data, 0, newWidth * newHeight, 0);
+
+         if (firstCol <= lastCol)
+         {
+            for (int iRow = Math.max(yUpperLeft, 0); iRow <= Math.min(yLowerRight, height - 1); iRow++)
+            {
+               System.arraycopy(data, index(iRow, firstCol), ret.data, (iRow - yUpperLeft) * newWidth + firstCol - xUpperLeft,
+                                lastCol - firstCol + 1);
+            }
+         }
+      } // else
+
+      return ret;
+   } // public PelBuffer crop(int xUpperLeft, int yUpperLeft, int xLowerRight, int yLowerRight, Pool pool)
+
+/*
+ * scales the image into a buffer of the given size from the given pool (a new buffer if pool is null) like PelArray.scale:
+ * averaging each color over the box of source pels of every new pel (PelArray.boxScale) when the image gets smaller in both
+ * directions, otherwise taking each new pel from the nearest source pel.
+ */
+   public PelBuffer scale(int newColumnWidth, int newRowHeight, Pool pool)
+   {
+      PelBuffer ret = pool != null ? pool.acquire(newColumnWidth, newRowHeight) : new PelBuffer(newColumnWidth, newRowHeight);
+
+      if (newColumnWidth <= width && newRowHeight <= height) return boxScale(ret);
+
+      double xColumnRatio = ((double) (width - 1)) / ((double) (newColumnWidth - 1));
+      double yRowRatio = ((double) (height - 1)) / ((double) (newRowHeight - 1));
+      int[] sourceCols = new int[newColumnWidth];
+      int sourceRow;
+
+      for (int iCol = 0; iCol < newColumnWidth; ++iCol)
+      {
+         sourceCols[iCol] = (int) Math.round(((double) iCol) * xColumnRatio);
+      }
+
+      for (int iRow = 0; iRow < newRowHeight; ++iRow)
+      {
+         sourceRow = offset + (int) Math.round(((double) iRow) * yRowRatio) * stride;
+
+         for (int iCol = 0; iCol < newColumnWidth; ++iCol)
+         {
+            ret.data[iRow * newColumnWidth + iCol] = data[sourceRow + sourceCols[iCol]];
+         }
+      }
+
+      return ret;
+   } // public PelBuffer scale(int newColumnWidth, int newRowHeight, Pool pool)
+
+/*
+ * scales the image down into the given (smaller or same size) buffer, each color of a new pel the rounded average of that
+ * color over its box of source pels (see PelArray.boxScale). Returns the given buffer.
+ */
+   private PelBuffer boxScale(PelBuffer ret)
+   {
+      int[] newCol = new int[width];             // new column of each source column.
+      int[] colsInBox = new int[ret.width];
+      long[] redSum = new long[ret.width];       // color sums of the boxes of the current new row.
+      long[] greenSum = new long[ret.width];
+      long[] blueSum = new long[ret.width];
+      int rowStart;
+      int pel;
+
+      for (int iNewCol = 0; iNewCol < ret.width; ++iNewCol)
+      {
+         colsInBox[iNewCol] = PelArray.boxStart(iNewCol + 1, width, ret.width) - PelArray.boxStart(iNewCol, width, ret.width);
+
+         for (int iCol = PelArray.boxStart(iNewCol, width, ret.width); iCol < PelArray.boxStart(iNewCol + 1, width, ret.width); ++iCol)
+         {
+            newCol[iCol] = iNewCol;
+         }
+      }
+
+      for (int iNewRow = 0; iNewRow < ret.height; ++iNewRow)
+      {
+         int firstRow = PelArray.boxStart(iNewRow, height, ret.height);
+         int endRow = PelArray.boxStart(iNewRow + 1, height, ret.height);
+         int count;
+
+         Arrays.fill(redSum, 0);
+         Arrays.fill(greenSum, 0);
+         Arrays.fill(blueSum, 0);
+
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
+         {
+            rowStart = offset + iRow * stride;
+
+            for (int iCol = 0; iCol < width; ++iCol)
+            {
+               pel = data[rowStart + iCol];
+               redSum[newCol[iCol]]   += (pel & PelArray.RED) >> 16;
+               greenSum[newCol[iCol]] += (pel & PelArray.GREEN) >> 8;
+               blueSum[newCol[iCol]]  += pel & PelArray.BLUE;
+            }
+         }
+
+         for (int iNewCol = 0; iNewCol < ret.width; ++iNewCol)
+         {
+            count = (endRow - firstRow) * colsInBox[iNewCol];
+            ret.data[ret.index(iNewRow, iNewCol)] = (PelArray.boxAverage(redSum[iNewCol], count) << 16)
+                                                  | (PelArray.boxAverage(greenSum[iNewCol], count) << 8)
+                                                  | PelArray.boxAverage(blueSum[iNewCol], count);
+         }
+      } // for (int iNewRow = 0; iNewRow < ret.height; ++iNewRow)
+
+      return ret;
+   } // private PelBuffer boxScale(PelBuffer ret)
+
+/*
+ * rotates the image 90 degrees counter clockwise into a buffer from the given pool (a new buffer if pool is null).
+ */
+   public PelBuffer rotateCCW90(Pool pool)
+   {
+      PelBuffer ret = pool != null ? pool.acquire(height, width) : new PelBuffer(height, width);
+
+      for (int iRow = 0; iRow < height; ++iRow)
+      {
+         for (int iCol = 0; iCol < width; ++iCol)
+         {
+            ret.data[(width - 1 - iCol) * height + iRow] = data[offset + iRow * stride + iCol];
+         }
+      }
+
+      return ret;
+   } // public PelBuffer rotateCCW90(Pool pool)
+
+/*
+ * rotates the image 90 degrees clockwise into a buffer from the given pool (a new buffer if pool is null).
+ */
+   public PelBuffer rotateCW90(Pool pool)
+   {
+      PelBuffer ret = pool != null ? pool.acquire(height, width) : new PelBuffer(height, width);
+
+      for (int iRow = 0; iRow < height; ++iRow)
+      {
+         for (int iCol = 0; iCol < width; ++iCol)
+         {
+            ret.data[iCol * height + height - 1 - iRow] = data[offset + iRow * stride + iCol];
+         }
+      }
+
+      return ret;
+   } // public PelBuffer rotateCW90(Pool pool)
+} // public class PelBuffer
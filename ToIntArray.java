@@ -1,18 +1,48 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
 
 
 /* Author: Luke Zeng
  * Date of Creation: 4/24/2024
  * converts a bin format of a bmp file to an array and performs operations using pelArray, then converts back to bin.
+ * The operations (preprocess) are also used by the ImagePipeline, which runs them on gray levels decoded straight from the
+ * BMP files (preprocessGray).
+ *
+ * preprocessFused and preprocessGrayFused give the same images as preprocess and preprocessGray without building the
+ * intermediate images: one pass over the image for the center of mass, then one over the crop window for the scale.
+ * preprocessInPlace runs the same steps on a PelBuffer, changing its pels in place.
+ * preprocessCoarse finds the center of mass on a pyramid level and reads the full size image only inside the crop window for it.
+ * preprocessBands runs the steps of preprocess on an image streamed in bands (PelBands), for images too large for memory.
+ * preprocessWindow decodes only the crop window of a BMP file, found with a low resolution pass over the file.
+ * preprocessLazy runs the steps of preprocess as a LazyPelArray pipeline, pulling each pel of the scaled image through them.
+ *
+ * Usage: java ToIntArray <width> <height> <bin file> [method]
+ * where method is one of METHODS (fused by default) and picks the preprocess variant main runs (see preprocess(p, method)).
+ * The ImagePipeline picks among the variants that start from a BMP file.
  */
 
 public class ToIntArray
 {
+   public static final int CROPLEFT = 1000;    // pels kept left of the center of mass.
+   public static final int CROPUP = 1000;      // pels kept above the center of mass.
+   public static final int CROPRIGHT = 1000;   // pels kept right of the center of mass.
+   public static final int CROPDOWN = 1300;    // pels kept below the center of mass.
+   public static final int SCALEDWIDTH = 100;  // width of the preprocessed image.
+   public static final int SCALEDHEIGHT = 100; // height of the preprocessed image.
+   public static final int NOISEFLOOR = 0x00dddddd; // pels below this are background noise and become black.
+   public static final int NOISELEVEL = NOISEFLOOR & 0xFF; // NOISEFLOOR as a gray level.
+   public static final int PYRAMIDLEVEL = 4;   // pyramid level preprocessCoarse estimates the center of mass on (16x16 pels).
+   public static final int LOCATESTEP = 16;    // preprocessWindow samples one pel of every LOCATESTEP by LOCATESTEP block.
+   public static final String[] METHODS = {"fused", "steps", "coarse", "inplace", "lazy", "bands"}; // methods of main, fused first.
+
    public static int[][] pels;
    public static int W;
    public static int H;
    public static String file;
    public static String output;
+   public static String method;
 
 
    public static void main(String[] args) throws IOException
@@ -20,10 +50,22 @@ public class ToIntArray
       W = Integer.parseInt(args[0]);
       H = Integer.parseInt(args[1]);
       file = args[2];
+      method = args.length > 3 ? args[3] : METHODS[0];
       pels = new int[H][W];
       output = "modified" + file;
       convertBin();
-      PelArray p = new PelArray(pels);
+      PelArray p = preprocess(new PelArray(pels), method);
+
+      outputBin(p);
+   }
+
+/*
+ * runs the preprocessing operations on the given image and returns the preprocessed image:
+ * gray scale, ones compliment and flip, then a crop around the center of mass scaled down to SCALEDWIDTH by SCALEDHEIGHT
+ * with the background noise forced to black.
+ */
+   public static PelArray preprocess(PelArray p)
+   {
       p = p.grayScaleImage();
 
       p = p.onesComplimentImage();
@@ -35,14 +77,480 @@ public class ToIntArray
 
       System.out.println("COM: " + xc + " " + yc);
 
-      p = p.crop(xc-1000, yc-1000, xc+1000, yc+1300);
-      p = p.scale(100, 100);
-      p = p.forceMin(0x00dddddd , 0);
+      p = p.crop(xc-CROPLEFT, yc-CROPUP, xc+CROPRIGHT, yc+CROPDOWN);
+      p = p.scale(SCALEDWIDTH, SCALEDHEIGHT);
+      p = p.forceMin(NOISEFLOOR , 0);
       //p = p.forceMax(0x00b3b3b3, 1);
 
-      outputBin(p);
+      return p;
+   } // public static PelArray preprocess(PelArray p)
+
+/*
+ * runs the preprocess variant named by the given method (one of METHODS) on the given image. All of them give the image of
+ * preprocess, except coarse, whose center of mass is estimated on a pyramid level and can be off by a few pels.
+ */
+   public static PelArray preprocess(PelArray p, String method) throws IOException
+   {
+      PelArray ret;
+
+      if (method.equals("fused"))
+      {
+         ret = preprocessFused(p);
+      }
+      else if (method.equals("steps"))
+      {
+         ret = preprocess(p);
+      }
+      else if (method.equals("coarse"))
+      {
+         ret = preprocessCoarse(p);
+      }
+      else if (method.equals("inplace"))
+      {
+         ret = preprocessInPlace(PelBuffer.fromPelArray(p), null).toPelArray();
+      }
+      else if (method.equals("lazy"))
+      {
+         ret = preprocessLazy(LazyPelArray.of(p));
+      }
+      else if (method.equals("bands"))
+      {
+         ret = preprocessBands(PelBands.of(p));
+      }
+      else
+      {
+         throw new IllegalArgumentException("unknown method " + method + ", expected one of " + String.join(" ", METHODS));
+      }
+
+      return ret;
+   } // public static PelArray preprocess(PelArray p, String method) throws IOException
+
+/*
+ * runs the preprocessing operations of preprocess, but estimates the center of mass on level PYRAMIDLEVEL of the pyramid of
+ * the image and refines it at full size only inside the crop window around the estimate (PelArray.coarseCOM). The center of
+ * mass can be off from the one preprocess finds, by a pel or so when the image outside the window isn't smooth.
+ */
+   public static PelArray preprocessCoarse(PelArray p)
+   {
+      p = p.grayScaleImage();
+
+      p = p.onesComplimentImage();
+      p = p.flipHorizontal();
+
+      int[] com = p.coarseCOM(PYRAMIDLEVEL, CROPLEFT, CROPUP, CROPRIGHT, CROPDOWN);
+      int xc = com[0];
+      int yc = com[1];
+
+      System.out.println("COM: " + xc + " " + yc);
+
+      p = p.crop(xc-CROPLEFT, yc-CROPUP, xc+CROPRIGHT, yc+CROPDOWN);
+      p = p.scale(SCALEDWIDTH, SCALEDHEIGHT);
+      p = p.forceMin(NOISEFLOOR , 0);
+
+      return p;
+   } // public static PelArray preprocessCoarse(PelArray p)
+
+/*
+ * runs the preprocessing operations of preprocess on an image streamed in bands of rows, so only a band of the full size
+ * image is in memory at a time: one pass over every band for the center of mass, then the crop window is read again for
+ * the scale, one box of rows per preprocessed row. Gives the same image as preprocess.
+ */
+   public static PelArray preprocessBands(PelBands b) throws IOException
+   {
+      b = b.grayScaleImage();
+
+      b = b.onesComplimentImage();
+      b = b.flipHorizontal();
+
+      int xc = b.getXcom();
+      int yc = b.getYcom();
+
+      System.out.println("COM: " + xc + " " + yc);
+
+      b = b.crop(xc-CROPLEFT, yc-CROPUP, xc+CROPRIGHT, yc+CROPDOWN);
+      b = b.scale(SCALEDWIDTH, SCALEDHEIGHT);
+      b = b.forceMin(NOISEFLOOR , 0);
+
+      return b.toPelArray();
+   } // public static PelArray preprocessBands(PelBands b) throws IOException
+
+/*
+ * runs the preprocessing operations of preprocess as a LazyPelArray pipeline: no intermediate image is built, the center
+ * of mass pulls every pel through the first steps and toPelArray pulls the pels of the scaled image through all of them.
+ * Gives the same image as preprocess.
+ */
+   public static PelArray preprocessLazy(LazyPelArray l)
+   {
+      l = l.grayScaleImage();
+
+      l = l.onesComplimentImage();
+      l = l.flipHorizontal();
+
+      int xc = l.getXcom();
+      int yc = l.getYcom();
+
+      System.out.println("COM: " + xc + " " + yc);
+
+      l = l.crop(xc-CROPLEFT, yc-CROPUP, xc+CROPRIGHT, yc+CROPDOWN);
+      l = l.scale(SCALEDWIDTH, SCALEDHEIGHT);
+      l = l.forceMin(NOISEFLOOR , 0);
+
+      return l.toPelArray();
+   } // public static PelArray preprocessLazy(LazyPelArray l)
+
+/*
+ * runs the preprocessing operations of preprocess on the given BMP file, decoding only about the crop window of it.
+ * A low resolution pass (BMPDecoder.readSampled, one pel of every LOCATESTEP by LOCATESTEP block standing for its block)
+ * estimates the center of mass. The blocks around the crop window for it, one block more on every side, are decoded at full
+ * size (BMPDecoder.readWindow) and the center of mass is refined with their pels and the samples of the blocks outside them,
+ * like PelArray.coarseCOM. If the refined crop window still runs past the decoded blocks, it is decoded again on its own.
+ * The center of mass can be off from the one preprocess finds by a few pels when there is mass outside the window (each
+ * sample stands for its whole block, so noise or fine detail there isn't weighed right); with the same center of mass the
+ * image is the same.
+ */
+   public static PelArray preprocessWindow(String filename) throws IOException
+   {
+      ByteBuffer buf = BMPDecoder.map(filename);
+      BMPDecoder decoder = new BMPDecoder();
+
+      decoder.readHeader(buf);
+      decoder.readColorTable(buf);
+
+      int width = decoder.width;
+      int height = decoder.height;
+      int[][] samples = new PelArray(decoder.readSampled(buf, LOCATESTEP)).grayScaleImage().onesComplimentImage().arrayOfPels;
+
+      int[] com = windowCOM(samples, width, height, null, null); // the estimate, from the samples alone.
+
+      // the blocks of the crop window (in the file, so before the flip), one more on every side.
+      int[] blocks = new int[4];
+      blocks[0] = Math.max(0, Math.floorDiv(com[0] - CROPLEFT, LOCATESTEP) - 1);
+      blocks[1] = Math.max(0, Math.floorDiv(height - 1 - (com[1] + CROPDOWN), LOCATESTEP) - 1);
+      blocks[2] = Math.min(samples[0].length, Math.floorDiv(com[0] + CROPRIGHT, LOCATESTEP) + 2);
+      blocks[3] = Math.min(samples.length, Math.floorDiv(height - 1 - (com[1] - CROPUP), LOCATESTEP) + 2);
+
+      int left = blocks[0] * LOCATESTEP; // the decoded part of the file, corners included.
+      int top = blocks[1] * LOCATESTEP;
+      int right = Math.min(blocks[2] * LOCATESTEP, width) - 1;
+      int bottom = Math.min(blocks[3] * LOCATESTEP, height) - 1;
+      PelArray inside = readPreprocessed(decoder, buf, left, top, right, bottom);
+
+      com = windowCOM(samples, width, height, blocks, inside);
+      int xc = com[0];
+      int yc = com[1];
+
+      System.out.println("COM: " + xc + " " + yc);
+
+      int cropLeft = Math.max(0, xc - CROPLEFT); // the part of the file the crop window keeps.
+      int cropTop = Math.max(0, height - 1 - (yc + CROPDOWN));
+      int cropRight = Math.min(width - 1, xc + CROPRIGHT);
+      int cropBottom = Math.min(height - 1, height - 1 - (yc - CROPUP));
+
+      if (cropLeft < left || cropTop < top || cropRight > right || cropBottom > bottom)
+      {
+         left = cropLeft;
+         top = cropTop;
+         right = cropRight;
+         bottom = cropBottom;
+         inside = readPreprocessed(decoder, buf, left, top, right, bottom);
+      }
+
+      int flippedTop = height - 1 - bottom; // row of the flipped image the first row of inside is.
+
+      PelArray p = inside.crop(xc-CROPLEFT-left, yc-CROPUP-flippedTop, xc+CROPRIGHT-left, yc+CROPDOWN-flippedTop);
+      p = p.scale(SCALEDWIDTH, SCALEDHEIGHT);
+      p = p.forceMin(NOISEFLOOR , 0);
+
+      return p;
+   } // public static PelArray preprocessWindow(String filename) throws IOException
+
+/*
+ * decodes the given rectangle of the file (corners included, before the flip) and runs the steps of preprocess before the
+ * center of mass on it: gray scale, ones compliment and flip.
+ */
+   private static PelArray readPreprocessed(BMPDecoder decoder, ByteBuffer buf, int left, int top, int right, int bottom)
+   {
+      return new PelArray(decoder.readWindow(buf, left, top, right, bottom)).grayScaleImage().onesComplimentImage().flipHorizontal();
    }
 
+/*
+ * returns the center of mass {x, y} of the flipped image for preprocessWindow from the given samples (gray scale and ones
+ * compliment, not flipped), each weighted by the pels of its block and put in the middle of it, and, if blocks isn't null, the full size pels of inside
+ * (preprocessed and flipped) in place of the samples of the blocks from blocks[0], blocks[1] up to, but not including,
+ * blocks[2], blocks[3]. All zero pels give the center of the image, like PelArray.calcCOM.
+ */
+   private static int[] windowCOM(int[][] samples, int width, int height, int[] blocks, PelArray inside)
+   {
+      double colCom = 0.0, rowCom = 0.0, mass = 0.0;
+      double value;
+      int blockWidth, blockHeight;
+
+      for (int r = 0; r < samples.length; ++r)
+      {
+         for (int c = 0; c < samples[r].length; ++c)
+         {
+            if (blocks != null && c >= blocks[0] && r >= blocks[1] && c < blocks[2] && r < blocks[3]) continue; // in inside.
+
+            blockWidth = Math.min(LOCATESTEP, width - c * LOCATESTEP);
+            blockHeight = Math.min(LOCATESTEP, height - r * LOCATESTEP);
+            value = (double) samples[r][c] * (blockWidth * blockHeight);
+            colCom += (c * LOCATESTEP + (blockWidth - 1) / 2.0) * value;                 // the middle of the block,
+            rowCom += (height - 1 - r * LOCATESTEP - (blockHeight - 1) / 2.0) * value;   // flipped.
+            mass += value;
+         }
+      }
+
+      if (blocks != null)
+      {
+         int[][] pels = inside.arrayOfPels;
+         int xOffset = blocks[0] * LOCATESTEP;
+         int yOffset = height - Math.min(blocks[3] * LOCATESTEP, height); // flipped row of the first row of inside.
+
+         for (int iRow = 0; iRow < pels.length; ++iRow)
+         {
+            for (int iCol = 0; iCol < pels[iRow].length; ++iCol)
+            {
+               value = (double) pels[iRow][iCol];
+               colCom += ((double) (xOffset + iCol)) * value;
+               rowCom += ((double) (yOffset + iRow)) * value;
+               mass += value;
+            }
+         }
+      } // if (blocks != null)
+
+      if (mass > 0.0) return new int[] {(int) Math.round(colCom / mass), (int) Math.round(rowCom / mass)};
+
+      return new int[] {width / 2, height / 2};
+   } // private static int[] windowCOM(int[][] samples, int width, int height, int[] blocks, PelArray inside)
+
+/*
+ * runs the preprocessing operations of preprocess on an image of gray levels (so without the gray scale conversion)
+ * and returns the preprocessed gray levels.
+ */
+   public static GrayPelArray preprocessGray(GrayPelArray g)
+   {
+      g = g.onesComplimentImage();
+      g = g.flipHorizontal();
+
+      int xc = g.getXcom();
+      int yc = g.getYcom();
+
+      System.out.println("COM: " + xc + " " + yc);
+
+      g = g.crop(xc-CROPLEFT, yc-CROPUP, xc+CROPRIGHT, yc+CROPDOWN);
+      g = g.scale(SCALEDWIDTH, SCALEDHEIGHT);
+      g = g.forceMin(NOISELEVEL, 0);
+
+      return g;
+   } // public static GrayPelArray preprocessGray(GrayPelArray g)
+
+/*
+ * runs the steps of preprocess on the given buffer, in place where they can be: the gray scale, the ones compliment and the
+ * flip change the pels of the buffer, the crop is a view of them if it lies inside the image, and only the scaled image
+ * (and a crop that runs off the image) come from the given pool. Returns the preprocessed image.
+ */
+   public static PelBuffer preprocessInPlace(PelBuffer b, PelBuffer.Pool pool)
+   {
+      PelBuffer cropped;
+      PelBuffer ret;
+
+      b.grayScaleInPlace().onesComplimentInPlace().flipHorizontalInPlace();
+
+      int xc = b.getXcom();
+      int yc = b.getYcom();
+
+      System.out.println("COM: " + xc + " " + yc);
+
+      cropped = b.crop(xc-CROPLEFT, yc-CROPUP, xc+CROPRIGHT, yc+CROPDOWN, pool);
+      ret = cropped.scale(SCALEDWIDTH, SCALEDHEIGHT, pool).forceMinInPlace(NOISEFLOOR, 0);
+
+      if (pool != null && cropped.data != b.data) // a copy, not a view.
+      {
+         pool.release(cropped);
+      }
+
+      return ret;
+   } // public static PelBuffer preprocessInPlace(PelBuffer b, PelBuffer.Pool pool)
+
+/*
+ * gives the same image as preprocess in two passes, without the five full size images preprocess builds on the way.
+ * The first pass reads every pel once for the center of mass of the gray scale, ones complemented, flipped image, in the
+ * blocks of rows calcCOM sums it in (on all cores for a large image). The second reads only the pels of the crop window,
+ * averages them into the SCALEDWIDTH by SCALEDHEIGHT boxes of the scale and forces the averages below the noise floor to black.
+ */
+   public static PelArray preprocessFused(PelArray p)
+   {
+      int[][] src = p.arrayOfPels;
+      int h = src.length;
+      int w = src[0].length;
+      int[] com;
+      int[] levels;
+      int[][] ret = new int[SCALEDHEIGHT][SCALEDWIDTH];
+      double[] sums;
+
+      sums = PelArray.reduceRows(h, w, 3, (firstRow, endRow, blockSums) ->
+      {
+         double colCom = 0.0, rowCom = 0.0, mass = 0.0;
+         double value;
+         int[] row;
+
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
+         {
+            row = src[h - 1 - iRow]; // row iRow of the flipped image.
+
+            for (int iCol = 0; iCol < w; ++iCol)
+            {
+               value = (double) ((0xFF - BMPDecoder.gray(row[iCol])) * GrayPelArray.REPLICATE);
+               colCom += ((double) iCol) * value;
+               rowCom += ((double) iRow) * value;
+               mass += value;
+            }
+         }
+
+         blockSums[0] += colCom;
+         blockSums[1] += rowCom;
+         blockSums[2] += mass;
+      });
+
+      com = com(sums[0], sums[1], sums[2], w, h);
+      levels = sampleWindow(com[0], com[1], w, h, (r, c) -> 0xFF - BMPDecoder.gray(src[h - 1 - r][c]));
+
+      for (int i = 0; i < SCALEDHEIGHT; i++)
+      {
+         for (int j = 0; j < SCALEDWIDTH; j++)
+         {
+            ret[i][j] = levels[i * SCALEDWIDTH + j] * GrayPelArray.REPLICATE;
+         }
+      }
+
+      return new PelArray(ret);
+   } // public static PelArray preprocessFused(PelArray p)
+
+/*
+ * gives the same gray levels as preprocessGray the way preprocessFused does it for int pels.
+ */
+   public static GrayPelArray preprocessGrayFused(GrayPelArray g)
+   {
+      byte[] src = g.getPels();
+      int h = g.getHeight();
+      int w = g.getWidth();
+      int[] com;
+      int[] levels;
+      byte[] ret = new byte[SCALEDWIDTH * SCALEDHEIGHT];
+      double[] sums;
+
+      sums = PelArray.reduceRows(h, w, 3, (firstRow, endRow, blockSums) ->
+      {
+         double colCom = 0.0, rowCom = 0.0, mass = 0.0;
+         double value;
+         int rowStart;
+
+         for (int iRow = firstRow; iRow < endRow; ++iRow)
+         {
+            rowStart = (h - 1 - iRow) * w; // row iRow of the flipped image.
+
+            for (int iCol = 0; iCol < w; ++iCol)
+            {
+               value = (double) ((0xFF - (src[rowStart + iCol] & 0xFF)) * GrayPelArray.REPLICATE);
+               colCom += ((double) iCol) * value;
+               rowCom += ((double) iRow) * value;
+               mass += value;
+            }
+         }
+
+         blockSums[0] += colCom;
+         blockSums[1] += rowCom;
+         blockSums[2] += mass;
+      });
+
+      com = com(sums[0], sums[1], sums[2], w, h);
+      levels = sampleWindow(com[0], com[1], w, h, (r, c) -> 0xFF - (src[(h - 1 - r) * w + c] & 0xFF));
+
+      for (int i = 0; i < ret.length; i++)
+      {
+         ret[i] = (byte) levels[i];
+      }
+
+      return new GrayPelArray(ret, SCALEDWIDTH, SCALEDHEIGHT);
+   } // public static GrayPelArray preprocessGrayFused(GrayPelArray g)
+
+/*
+ * returns the center of mass {x, y} from the sums of the first pass of a fused preprocess (like PelArray.calcCOM)
+ * and prints it like preprocess.
+ */
+   private static int[] com(double fColCom, double fRowCom, double fMass, int w, int h)
+   {
+      int[] ret = new int[2];
+
+      if (fMass > 0.0)
+      {
+         ret[0] = (int) Math.round(fColCom / fMass);
+         ret[1] = (int) Math.round(fRowCom / fMass);
+      }
+      else // all pels are zero, so use the center of the image.
+      {
+         ret[0] = w / 2;
+         ret[1] = h / 2;
+      }
+
+      System.out.println("COM: " + ret[0] + " " + ret[1]);
+
+      return ret;
+   } // private static int[] com(double fColCom, double fRowCom, double fMass, int w, int h)
+
+/*
+ * returns the gray levels (row by row) of the SCALEDWIDTH by SCALEDHEIGHT image that crop, scale and forceMin make around
+ * the given center of mass of the w by h image whose level at (row, col) is given by level. The crop window is larger
+ * than the scaled image both ways, so scale box filters it (PelArray.boxScale): each level is the average of its box of
+ * the window, where pels outside the image are 0 as crop makes them and so only count towards the size of the box.
+ */
+   private static int[] sampleWindow(int xc, int yc, int w, int h, IntBinaryOperator level)
+   {
+      int top = yc - CROPUP;
+      int left = xc - CROPLEFT;
+      int cropWidth = CROPLEFT + CROPRIGHT + 1;
+      int cropHeight = CROPUP + CROPDOWN + 1;
+      int firstCol = Math.max(left, 0);                // columns of the window inside the image.
+      int endCol = Math.min(left + cropWidth, w);
+      int[] boxCol = new int[cropWidth];               // box of each column of the window.
+      long[] sums = new long[SCALEDWIDTH];             // level sums of the boxes of the current row of boxes.
+      int[] ret = new int[SCALEDWIDTH * SCALEDHEIGHT];
+      int firstRow;
+      int endRow;
+      int cur;
+
+      for (int j = 0; j < SCALEDWIDTH; j++)
+      {
+         for (int c = PelArray.boxStart(j, cropWidth, SCALEDWIDTH); c < PelArray.boxStart(j + 1, cropWidth, SCALEDWIDTH); c++)
+         {
+            boxCol[c] = j;
+         }
+      }
+
+      for (int i = 0; i < SCALEDHEIGHT; i++)
+      {
+         firstRow = top + PelArray.boxStart(i, cropHeight, SCALEDHEIGHT);
+         endRow = top + PelArray.boxStart(i + 1, cropHeight, SCALEDHEIGHT);
+         Arrays.fill(sums, 0);
+
+         for (int iRow = Math.max(firstRow, 0); iRow < Math.min(endRow, h); iRow++)
+         {
+            for (int iCol = firstCol; iCol < endCol; iCol++)
+            {
+               sums[boxCol[iCol - left]] += level.applyAsInt(iRow, iCol);
+            }
+         }
+
+         for (int j = 0; j < SCALEDWIDTH; j++)
+         {
+            cur = PelArray.boxAverage(sums[j], (endRow - firstRow) * (PelArray.boxStart(j + 1, cropWidth, SCALEDWIDTH) - PelArray.boxStart(j, cropWidth, SCALEDWIDTH)));
+            ret[i * SCALEDWIDTH + j] = cur < NOISELEVEL ? 0 : cur;
+         }
+      } // for (int i = 0; i < SCALEDHEIGHT; i++)
+
+      return ret;
+   } // private static int[] sampleWindow(int xc, int yc, int w, int h, IntBinaryOperator level)
+
    public static void outputBin(PelArray pa) throws IOException
    {
       File f = new File(output);
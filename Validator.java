@@ -0,0 +1,224 @@
+import java.util.concurrent.LinkedBlockingQueue;
+
+/*
+ * Author: Luke Zeng
+ * Date of Creation: 10/19/2026
+ *
+ * Description: Validates a training network against a held-out truth table on its own thread. The training loop submits
+ *              snapshots of its weights every few iterations and keeps training; the validator runs each snapshot on the
+ *              validation cases, remembers the snapshot with the lowest validation error and asks the training to stop
+ *              (early stopping) once patience validations in a row didn't improve on it.
+ *
+ *              The validation error is the same error the training reports: 0.5 * (T - F)^2 summed over the outputs
+ *              and averaged over the cases.
+ *
+ *              Every snapshot is a full copy of the weights, so at most MAXPENDING of them wait to be validated. If the
+ *              validation falls behind the training, the oldest waiting snapshot is dropped for the new one (it is never
+ *              validated, so it doesn't count towards the patience either); the training never waits for the validator.
+ *
+ * Table of Contents:
+ *    public Validator(double[][] inputs, double[][] expected, int patience)
+ *    public void start()
+ *    public void submit(NetworkSnapshot snapshot, int iteration)
+ *    public boolean shouldStop()
+ *    public void finish()
+ *    public void run()
+ *    public double error(NetworkSnapshot snapshot)
+ *    public NetworkSnapshot best()
+ *    public double bestError()
+ *    public int bestIteration()
+ *    public int validations()
+ */
+
+public class Validator
+{
+   public static final int MAXPENDING = 2; // snapshots that may wait to be validated (older ones are dropped).
+
+   private final double[][] inputs;   // validation inputs.
+   private final double[][] expected; // validation expected outputs.
+   private final int patience;        // validations in a row without improvement before training should stop.
+
+   private final LinkedBlockingQueue<Checkpoint> queue; // snapshots waiting to be validated.
+   private final Thread thread;
+   private volatile boolean stop;                       // set once the validation error stopped improving.
+
+   private NetworkSnapshot best;      // snapshot with the lowest validation error so far.
+   private double bestError = Double.MAX_VALUE;
+   private int bestIteration;         // iteration the best snapshot was taken at.
+   private int sinceBest;             // validations since the best snapshot.
+   private int validations;           // number of snapshots validated.
+
+/*
+ * A snapshot and the iteration it was taken at (a null snapshot marks the end of training).
+ */
+   private static class Checkpoint
+   {
+      final NetworkSnapshot snapshot;
+      final int iteration;
+
+      Checkpoint(NetworkSnapshot snapshot, int iteration)
+      {
+         this.snapshot = snapshot;
+         this.iteration = iteration;
+      }
+   } // private static class Checkpoint
+
+/*
+ * Creates a validator for the given validation truth table that asks to stop after patience validations without
+ * improvement. Call start() before submitting snapshots.
+ */
+   public Validator(double[][] inputs, double[][] expected, int patience)
+   {
+      this.inputs = inputs;
+      this.expected = expected;
+      this.patience = Math.max(1, patience);
+
+      queue = new LinkedBlockingQueue<Checkpoint>(MAXPENDING);
+      thread = new Thread(this::run, "validator");
+      thread.setDaemon(true);
+   } // public Validator(double[][] inputs, double[][] expected, int patience)
+
+/*
+ * starts the validation thread.
+ */
+   public void start()
+   {
+      thread.start();
+   }
+
+/*
+ * queues the given snapshot (taken at the given iteration) for validation and returns right away, dropping the oldest
+ * waiting snapshots if MAXPENDING are already waiting.
+ */
+   public void submit(NetworkSnapshot snapshot, int iteration)
+   {
+      Checkpoint checkpoint = new Checkpoint(snapshot, iteration);
+
+      while (!queue.offer(checkpoint))
+      {
+         queue.poll(); // the oldest waiting snapshot (the validator may have taken it already, then the offer succeeds).
+      }
+   } // public void submit(NetworkSnapshot snapshot, int iteration)
+
+/*
+ * returns whether the validation error stopped improving (training should stop).
+ */
+   public boolean shouldStop()
+   {
+      return stop;
+   }
+
+/*
+ * validates the snapshots still queued and waits for the validation thread to end.
+ * The results (best, bestError, ...) are only complete after this returns.
+ */
+   public void finish()
+   {
+      try
+      {
+         queue.put(new Checkpoint(null, 0)); // waits for room, the end of training is never dropped.
+         thread.join();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+   } // public void finish()
+
+/*
+ * validates the submitted snapshots in order until the end of training is submitted.
+ */
+   public void run()
+   {
+      Checkpoint cur;
+      double curError;
+      boolean done = false;
+
+      while (!done)
+      {
+         try
+         {
+            cur = queue.take();
+
+            if (cur.snapshot == null)
+            {
+               done = true;
+            }
+            else
+            {
+               curError = error(cur.snapshot);
+               validations++;
+
+               if (curError < bestError)
+               {
+                  best = cur.snapshot;
+                  bestError = curError;
+                  bestIteration = cur.iteration;
+                  sinceBest = 0;
+               }
+               else if (++sinceBest >= patience)
+               {
+                  stop = true;
+               }
+            } // else
+         } // try
+         catch (InterruptedException e)
+         {
+            done = true;
+         }
+      } // while (!done)
+   } // public void run()
+
+/*
+ * returns the average error of the given snapshot over the validation cases.
+ */
+   public double error(NetworkSnapshot snapshot)
+   {
+      double[][] outputs = snapshot.runBatch(inputs);
+      double omegai;
+      double ret = 0.0;
+
+      for (int cases = 0; cases < inputs.length; cases++)
+      {
+         for (int i = 0; i < outputs[cases].length; i++)
+         {
+            omegai = expected[cases][i] - outputs[cases][i];
+            ret += 0.5 * omegai * omegai;
+         }
+      }
+
+      return ret / (double) inputs.length;
+   } // public double error(NetworkSnapshot snapshot)
+
+/*
+ * returns the snapshot with the lowest validation error (null if nothing was validated).
+ */
+   public NetworkSnapshot best()
+   {
+      return best;
+   }
+
+/*
+ * returns the lowest validation error.
+ */
+   public double bestError()
+   {
+      return bestError;
+   }
+
+/*
+ * returns the iteration the snapshot with the lowest validation error was taken at.
+ */
+   public int bestIteration()
+   {
+      return bestIteration;
+   }
+
+/*
+ * returns the number of snapshots validated.
+ */
+   public int validations()
+   {
+      return validations;
+   }
+} // public class Validator